@@ -0,0 +1,78 @@
+package co.davidmontano.onda.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Runs the benchmarks (any JMH command line option applies) with the GC profiler and prints,
+// for every result, the time per operation and, when it reads frames, ns/frame, MB/s and bytes allocated per frame
+public class BenchmarkReport {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.println(String.format("%-60s %-22s %14s %10s %10s %12s %10s",
+                "Benchmark", "Wave", "ns/op", "ns/frame", "MB/s", "alloc MB/s", "B/frame"));
+        for (RunResult result : results) {
+            print(result);
+        }
+    }
+
+    private static void print(RunResult result) {
+        BenchmarkParams params = result.getParams();
+        int bitsPerSample = Integer.parseInt(params.getParam("bitsPerSample"));
+        int channels = Integer.parseInt(params.getParam("channels"));
+        String size = params.getParam("size");
+        int frameSize = bitsPerSample / 8 * channels;
+
+        double nanosPerOperation = result.getPrimaryResult().getScore();
+        double allocationRate = secondary(result, "gc.alloc.rate");
+        double bytesPerOperation = secondary(result, "gc.alloc.rate.norm");
+
+        long frames = framesPerOperation(params.getBenchmark(), SyntheticWave.parseSize(size) / frameSize);
+        String wave = bitsPerSample + "bit " + channels + "ch " + size;
+        if (frames > 0) {
+            double nanosPerFrame = nanosPerOperation / frames;
+            System.out.println(String.format("%-60s %-22s %14.1f %10.3f %10.1f %12.1f %10.2f",
+                    params.getBenchmark(), wave, nanosPerOperation, nanosPerFrame,
+                    frameSize * 1000 / nanosPerFrame, allocationRate, bytesPerOperation / frames));
+        } else {
+            System.out.println(String.format("%-60s %-22s %14.1f %10s %10s %12.1f %10s",
+                    params.getBenchmark(), wave, nanosPerOperation, "-", "-", allocationRate, "-"));
+        }
+    }
+
+    // DecodeBenchmark times are already per frame, DrawWaveBenchmark reads the whole file, the rest read no frames
+    private static long framesPerOperation(String benchmark, long fileFrames) {
+        if (benchmark.startsWith(DecodeBenchmark.class.getName())) {
+            return 1;
+        } else if (benchmark.startsWith(DrawWaveBenchmark.class.getName())) {
+            return fileFrames;
+        }
+        return 0;
+    }
+
+    private static double secondary(RunResult result, String name) {
+        // JMH declares the map with raw results
+        Map<String, ?> secondaryResults = result.getSecondaryResults();
+        for (Map.Entry<String, ?> entry : secondaryResults.entrySet()) {
+            if (entry.getKey().endsWith(name)) {
+                return ((Result<?>) entry.getValue()).getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,107 @@
+package co.davidmontano.onda.benchmark;
+
+import co.davidmontano.onda.core.PrefetchingWave;
+import co.davidmontano.onda.core.SampleCursor;
+import co.davidmontano.onda.core.SamplesIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Every invocation decodes BLOCK_FRAMES frames, so the reported time is per frame.
+// Readers wrap around to the first frame at the end of the file
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    public static final int BLOCK_FRAMES = 4096;
+
+    private SamplesIterator iterator;
+
+    private SamplesIterator bulk;
+
+    private SamplesIterator prefetched;
+
+    private SampleCursor cursor;
+
+    private float[] frames;
+
+    @Setup(Level.Trial)
+    public void setUp(WaveFiles files) {
+        iterator = new SamplesIterator(files.wave);
+        bulk = new SamplesIterator(files.wave);
+        prefetched = new SamplesIterator(new PrefetchingWave(files.wave));
+        cursor = new SampleCursor(files.wave);
+        frames = new float[BLOCK_FRAMES * files.channels];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        iterator.close();
+        bulk.close();
+        prefetched.close();
+        cursor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_FRAMES)
+    public void iterateSamples(Blackhole blackhole) {
+        for (int frame = 0; frame < BLOCK_FRAMES; frame++) {
+            if (!iterator.hasNext()) {
+                iterator.seek(0);
+            }
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_FRAMES)
+    public void readFrames(Blackhole blackhole) {
+        readBlock(bulk, blackhole);
+    }
+
+    // same as readFrames, with the next blocks read ahead while these are decoded
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_FRAMES)
+    public void prefetchedReadFrames(Blackhole blackhole) {
+        readBlock(prefetched, blackhole);
+    }
+
+    private void readBlock(SamplesIterator samples, Blackhole blackhole) {
+        int read = 0;
+        while (read < BLOCK_FRAMES) {
+            int frames = samples.readFrames(this.frames, read * cursor.getChannels(), BLOCK_FRAMES - read);
+            if (frames < 0) {
+                samples.seek(0);
+            } else {
+                read += frames;
+            }
+        }
+        blackhole.consume(frames);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_FRAMES)
+    public double cursor() {
+        double sum = 0;
+        for (int frame = 0; frame < BLOCK_FRAMES; frame++) {
+            if (!cursor.advance()) {
+                cursor.seek(0);
+                cursor.advance();
+            }
+            sum += cursor.amplitude(0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,21 @@
+package co.davidmontano.onda.benchmark;
+
+import co.davidmontano.onda.image.DrawWave;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// One invocation reads the whole file
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DrawWaveBenchmark {
+
+    @Benchmark
+    public BufferedImage[] draw(WaveFiles files) {
+        return new DrawWave(files.wave).draw(1024, 256);
+    }
+}
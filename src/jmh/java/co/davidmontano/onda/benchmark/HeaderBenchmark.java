@@ -0,0 +1,50 @@
+package co.davidmontano.onda.benchmark;
+
+import co.davidmontano.onda.core.ChunkReader;
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.Subchunk;
+import co.davidmontano.onda.core.WaveHeaderCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderBenchmark {
+
+    private static final WaveHeaderCache NO_CACHE = new WaveHeaderCache(0);
+
+    @Benchmark
+    public Set<Subchunk> chunkReaderRead(WaveFiles files) throws IOException {
+        try (InputStream input = new FileInputStream(files.file)) {
+            return new ChunkReader().read(input, files.file.length());
+        }
+    }
+
+    @Benchmark
+    public Set<Subchunk> chunkReaderReadChannel(WaveFiles files) throws IOException {
+        try (FileChannel channel = FileChannel.open(files.file.toPath(), StandardOpenOption.READ)) {
+            return new ChunkReader().read(channel);
+        }
+    }
+
+    // served from the default header cache after the first invocation
+    @Benchmark
+    public FileWave fileWaveConstruction(WaveFiles files) throws IOException {
+        return new FileWave(files.file.getPath());
+    }
+
+    @Benchmark
+    public FileWave fileWaveConstructionUncached(WaveFiles files) throws IOException {
+        return new FileWave(files.file.getPath(), NO_CACHE);
+    }
+}
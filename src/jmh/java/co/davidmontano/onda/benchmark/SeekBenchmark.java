@@ -0,0 +1,48 @@
+package co.davidmontano.onda.benchmark;
+
+import co.davidmontano.onda.core.Sample;
+import co.davidmontano.onda.core.SamplesIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SeekBenchmark {
+
+    private SamplesIterator iterator;
+
+    private long totalSamples;
+
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    @Setup(Level.Trial)
+    public void setUp(WaveFiles files) {
+        iterator = new SamplesIterator(files.wave);
+        totalSamples = files.wave.getTotalSamples();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        iterator.close();
+    }
+
+    // random positions in both directions, same sequence on every run
+    @Benchmark
+    public Sample randomSeek() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return iterator.moveToSample((seed >>> 1) % totalSamples);
+    }
+}
@@ -0,0 +1,119 @@
+package co.davidmontano.onda.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Deterministic PCM wav files: one sine per channel plus seeded noise, so every run reads the same bytes.
+// Files are kept in the output directory and only generated once
+public class SyntheticWave {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    private static final int HEADER_SIZE = 44;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final File directory;
+
+    public SyntheticWave(File directory) {
+        this.directory = directory;
+    }
+
+    public File get(int bitsPerSample, int channels, String size) throws IOException {
+        long dataSize = parseSize(size);
+        File file = new File(directory, "synthetic_" + bitsPerSample + "bits_" + channels + "ch_" + size + ".wav");
+        if (!file.exists()) {
+            directory.mkdirs();
+            File temporary = new File(directory, file.getName() + ".tmp");
+            write(temporary, bitsPerSample, channels, dataSize);
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    public static long parseSize(String size) {
+        String unit = size.substring(size.length() - 2).toUpperCase();
+        long value = Long.parseLong(size.substring(0, size.length() - 2));
+        switch (unit) {
+            case "KB":
+                return value << 10;
+            case "MB":
+                return value << 20;
+            case "GB":
+                return value << 30;
+            default:
+                throw new IllegalArgumentException("Unknown size " + size + ". Use KB, MB or GB");
+        }
+    }
+
+    private void write(File file, int bitsPerSample, int channels, long dataSize) throws IOException {
+        int bytePerSample = bitsPerSample / 8;
+        int frameSize = bytePerSample * channels;
+        long frames = dataSize / frameSize;
+        dataSize = frames * frameSize;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes("US-ASCII")).putInt((int) (HEADER_SIZE - 8 + dataSize)).put("WAVE".getBytes("US-ASCII"));
+        buffer.put("fmt ".getBytes("US-ASCII")).putInt(16)
+                .putShort((short) 1)
+                .putShort((short) channels)
+                .putInt(SAMPLE_RATE)
+                .putInt(SAMPLE_RATE * frameSize)
+                .putShort((short) frameSize)
+                .putShort((short) bitsPerSample);
+        buffer.put("data".getBytes("US-ASCII")).putInt((int) dataSize);
+
+        long seed = 0x2545F4914F6CDD1DL;
+        try (FileChannel output = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long frame = 0; frame < frames; frame++) {
+                if (buffer.remaining() < frameSize) {
+                    flush(buffer, output);
+                }
+                for (int channel = 0; channel < channels; channel++) {
+                    seed ^= seed << 13;
+                    seed ^= seed >>> 7;
+                    seed ^= seed << 17;
+                    double noise = (seed & 0xFFFF) / 65535.0 - 0.5;
+                    double value = 0.6 * Math.sin(2 * Math.PI * 220 * (channel + 1) * frame / SAMPLE_RATE) + 0.2 * noise;
+                    putSample(buffer, bitsPerSample, value);
+                }
+            }
+            flush(buffer, output);
+        }
+    }
+
+    private static void putSample(ByteBuffer buffer, int bitsPerSample, double value) {
+        switch (bitsPerSample) {
+            case 8:
+                buffer.put((byte) (128 + Math.round(value * 127)));
+                break;
+            case 16:
+                buffer.putShort((short) Math.round(value * Short.MAX_VALUE));
+                break;
+            case 24:
+                int sample = (int) Math.round(value * 0x7FFFFF);
+                buffer.put((byte) sample).put((byte) (sample >> 8)).put((byte) (sample >> 16));
+                break;
+            case 32:
+                buffer.putInt((int) Math.round(value * Integer.MAX_VALUE));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported bits per sample " + bitsPerSample);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel output) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package co.davidmontano.onda.benchmark;
+
+import co.davidmontano.onda.core.FileWave;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+
+@State(Scope.Benchmark)
+public class WaveFiles {
+
+    public static final String DIRECTORY_PROPERTY = "onda.benchmark.dir";
+
+    @Param({"8", "16", "24", "32"})
+    public int bitsPerSample;
+
+    @Param({"1", "2", "6"})
+    public int channels;
+
+    @Param({"64KB", "16MB", "1GB"})
+    public String size;
+
+    public File file;
+
+    public FileWave wave;
+
+    @Setup
+    public void setUp() throws IOException {
+        File directory = new File(System.getProperty(DIRECTORY_PROPERTY, "build/jmh-waves"));
+        file = new SyntheticWave(directory).get(bitsPerSample, channels, size);
+        wave = new FileWave(file.getPath());
+    }
+}
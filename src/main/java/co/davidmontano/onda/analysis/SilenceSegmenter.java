@@ -0,0 +1,157 @@
+package co.davidmontano.onda.analysis;
+
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Finds the sound between silences from the energy of consecutive windows of frames, all channels mixed.
+//
+// A segment opens on the first window at openDb or louder and closes once the windows stayed under closeDb,
+// lower than openDb so a level around one threshold does not flicker, for minSilenceFrames. Pauses shorter
+// than that stay inside the segment, segments shorter than minSegmentFrames are dropped. Boundaries fall on
+// windows, memory is one window whatever the length of the wave
+public class SilenceSegmenter {
+
+    private final int windowFrames;
+
+    private final double openDb;
+
+    private final double closeDb;
+
+    private final long minSilenceFrames;
+
+    private final long minSegmentFrames;
+
+    public SilenceSegmenter(int windowFrames, double openDb, double closeDb, long minSilenceFrames, long minSegmentFrames) {
+        if (windowFrames < 1) {
+            throw new IllegalArgumentException("Window must hold at least one frame: " + windowFrames);
+        }
+        if (closeDb > openDb) {
+            throw new IllegalArgumentException("Close threshold " + closeDb + " dB above open threshold " + openDb + " dB");
+        }
+        this.windowFrames = windowFrames;
+        this.openDb = openDb;
+        this.closeDb = closeDb;
+        this.minSilenceFrames = minSilenceFrames;
+        this.minSegmentFrames = minSegmentFrames;
+    }
+
+    // Reads the wave once, the consumer gets every segment as soon as the silence after it is long enough
+    public void segment(Wave wave, SegmentConsumer consumer) {
+        int channels = wave.getChannels();
+        float[] window = new float[windowFrames * channels];
+        long start = -1;
+        // first frame of the current run of quiet windows inside a segment, -1 when the last window was loud
+        long quietSince = -1;
+        long frame = 0;
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            int read;
+            while ((read = fill(samples, window, channels)) > 0) {
+                double level = levelDb(window, read * channels);
+                if (start < 0) {
+                    if (level >= openDb) {
+                        start = frame;
+                    }
+                } else if (level < closeDb) {
+                    if (quietSince < 0) {
+                        quietSince = frame;
+                    }
+                    if (frame + read - quietSince >= minSilenceFrames) {
+                        emit(start, quietSince, consumer);
+                        start = quietSince = -1;
+                    }
+                } else {
+                    quietSince = -1;
+                }
+                frame += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (start >= 0) {
+            emit(start, quietSince < 0 ? frame : quietSince, consumer);
+        }
+    }
+
+    // The segments as views of the wave, nothing copied. Reading them needs a wave that can be read again
+    public List<Wave> split(Wave wave) {
+        List<Wave> segments = new ArrayList<>();
+        segment(wave, (startFrame, endFrame) -> segments.add(wave.slice(startFrame, endFrame)));
+        return segments;
+    }
+
+    // From the start of the first segment to the end of the last one, empty when the wave is all silence
+    public Wave trim(Wave wave) {
+        long[] bounds = {-1, 0};
+        segment(wave, (startFrame, endFrame) -> {
+            if (bounds[0] < 0) {
+                bounds[0] = startFrame;
+            }
+            bounds[1] = endFrame;
+        });
+        return bounds[0] < 0 ? wave.slice(0, 0) : wave.slice(bounds[0], bounds[1]);
+    }
+
+    private void emit(long start, long end, SegmentConsumer consumer) {
+        if (end - start >= minSegmentFrames) {
+            consumer.accept(start, end);
+        }
+    }
+
+    // a whole window unless the wave ends first
+    private int fill(SamplesIterator samples, float[] window, int channels) {
+        int filled = 0;
+        int read;
+        while (filled < windowFrames && (read = samples.readFrames(window, filled * channels, windowFrames - filled)) > 0) {
+            filled += read;
+        }
+        return filled;
+    }
+
+    // mean square of the samples in dB relative to full scale
+    private static double levelDb(float[] samples, int count) {
+        double sumOfSquares = 0;
+        for (int i = 0; i < count; i++) {
+            sumOfSquares += samples[i] * samples[i];
+        }
+        return 10 * Math.log10(sumOfSquares / count);
+    }
+
+    public int getWindowFrames() {
+        return windowFrames;
+    }
+
+    public double getOpenDb() {
+        return openDb;
+    }
+
+    public double getCloseDb() {
+        return closeDb;
+    }
+
+    public long getMinSilenceFrames() {
+        return minSilenceFrames;
+    }
+
+    public long getMinSegmentFrames() {
+        return minSegmentFrames;
+    }
+}
@@ -0,0 +1,164 @@
+package co.davidmontano.onda.analysis;
+
+import co.davidmontano.onda.core.SampleFormat;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Running per channel sums of consecutive frames. Two accumulators of adjacent ranges merge into the one of
+// both ranges, so a wave can be split, accumulated by several threads and merged back in order
+public class StatsAccumulator {
+
+    private final int channels;
+
+    private final float clipLevel;
+
+    private final double[] sum;
+
+    private final double[] sumOfSquares;
+
+    private final float[] min;
+
+    private final float[] max;
+
+    private final long[] clipped;
+
+    private final long[] zeroCrossings;
+
+    // signs at the edges of the range, to count the crossing between two merged ranges
+    private final boolean[] firstNegative;
+
+    private final boolean[] lastNegative;
+
+    private long frames;
+
+    public StatsAccumulator(int channels, float clipLevel) {
+        this.channels = channels;
+        this.clipLevel = clipLevel;
+        this.sum = new double[channels];
+        this.sumOfSquares = new double[channels];
+        this.min = new float[channels];
+        this.max = new float[channels];
+        this.clipped = new long[channels];
+        this.zeroCrossings = new long[channels];
+        this.firstNegative = new boolean[channels];
+        this.lastNegative = new boolean[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            min[channel] = Float.MAX_VALUE;
+            max[channel] = -Float.MAX_VALUE;
+        }
+    }
+
+    // Highest amplitude the format can hold: PCM never reaches 1 on the positive side
+    public static float clipLevel(SampleFormat format) {
+        if (format == SampleFormat.FLOAT_32 || format == SampleFormat.FLOAT_64) {
+            return 1;
+        }
+        return (float) (1 - 1.0 / (1L << (format.getBitsPerSample() - 1)));
+    }
+
+    // Adds frames interleaved frames, following the ones already accumulated
+    public void accept(float[] interleaved, int offset, int frames) {
+        if (frames == 0) {
+            return;
+        }
+        for (int channel = 0; channel < channels; channel++) {
+            double channelSum = 0;
+            double channelSumOfSquares = 0;
+            float channelMin = min[channel];
+            float channelMax = max[channel];
+            long channelClipped = 0;
+            long channelCrossings = 0;
+            boolean negative = this.frames == 0 ? interleaved[offset + channel] < 0 : lastNegative[channel];
+            if (this.frames == 0) {
+                firstNegative[channel] = negative;
+            }
+            for (int frame = 0, i = offset + channel; frame < frames; frame++, i += channels) {
+                float amplitude = interleaved[i];
+                channelSum += amplitude;
+                channelSumOfSquares += amplitude * amplitude;
+                channelMin = Math.min(channelMin, amplitude);
+                channelMax = Math.max(channelMax, amplitude);
+                if (Math.abs(amplitude) >= clipLevel) {
+                    channelClipped++;
+                }
+                if (amplitude < 0 != negative) {
+                    channelCrossings++;
+                    negative = !negative;
+                }
+            }
+            sum[channel] += channelSum;
+            sumOfSquares[channel] += channelSumOfSquares;
+            min[channel] = channelMin;
+            max[channel] = channelMax;
+            clipped[channel] += channelClipped;
+            zeroCrossings[channel] += channelCrossings;
+            lastNegative[channel] = negative;
+        }
+        this.frames += frames;
+    }
+
+    // Adds the frames of next, which must come right after the ones of this accumulator
+    public StatsAccumulator merge(StatsAccumulator next) {
+        if (next.channels != channels) {
+            throw new IllegalArgumentException("Channels don't match: " + channels + " and " + next.channels);
+        }
+        if (next.frames == 0) {
+            return this;
+        }
+        for (int channel = 0; channel < channels; channel++) {
+            sum[channel] += next.sum[channel];
+            sumOfSquares[channel] += next.sumOfSquares[channel];
+            min[channel] = Math.min(min[channel], next.min[channel]);
+            max[channel] = Math.max(max[channel], next.max[channel]);
+            clipped[channel] += next.clipped[channel];
+            zeroCrossings[channel] += next.zeroCrossings[channel];
+            if (frames == 0) {
+                firstNegative[channel] = next.firstNegative[channel];
+            } else if (lastNegative[channel] != next.firstNegative[channel]) {
+                zeroCrossings[channel]++;
+            }
+            lastNegative[channel] = next.lastNegative[channel];
+        }
+        frames += next.frames;
+        return this;
+    }
+
+    public WaveStats summary(int sampleRate) {
+        float[] peak = new float[channels];
+        float[] rms = new float[channels];
+        float[] dcOffset = new float[channels];
+        float[] zeroCrossingRate = new float[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            if (frames > 0) {
+                peak[channel] = Math.max(Math.abs(min[channel]), Math.abs(max[channel]));
+                rms[channel] = (float) Math.sqrt(sumOfSquares[channel] / frames);
+                dcOffset[channel] = (float) (sum[channel] / frames);
+            }
+            if (frames > 1) {
+                zeroCrossingRate[channel] = (float) ((double) zeroCrossings[channel] / (frames - 1));
+            }
+        }
+        return new WaveStats(sampleRate, frames, peak, rms, dcOffset, clipped.clone(), zeroCrossingRate);
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+}
@@ -0,0 +1,174 @@
+package co.davidmontano.onda.analysis;
+
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.SeekableWave;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Per channel peak, RMS, DC offset, clipped samples, zero crossing rate and crest factor of a wave, all of
+// them from a single pass over the frames
+public final class WaveStats {
+
+    // below this, splitting the read costs more than it saves
+    private static final long MIN_FRAMES_PER_TASK = 1 << 18;
+
+    private static final int BLOCK_FRAMES = 4096;
+
+    private final int sampleRate;
+
+    private final long frames;
+
+    private final float[] peak;
+
+    private final float[] rms;
+
+    private final float[] dcOffset;
+
+    private final long[] clipped;
+
+    private final float[] zeroCrossingRate;
+
+    WaveStats(int sampleRate, long frames, float[] peak, float[] rms, float[] dcOffset, long[] clipped,
+              float[] zeroCrossingRate) {
+        this.sampleRate = sampleRate;
+        this.frames = frames;
+        this.peak = peak;
+        this.rms = rms;
+        this.dcOffset = dcOffset;
+        this.clipped = clipped;
+        this.zeroCrossingRate = zeroCrossingRate;
+    }
+
+    public static WaveStats of(Wave wave) {
+        return of(wave, ForkJoinPool.commonPool());
+    }
+
+    // Seekable waves are split in ranges read by the pool threads, the others are read sequentially
+    public static WaveStats of(Wave wave, ForkJoinPool pool) {
+        float clipLevel = StatsAccumulator.clipLevel(wave.getSampleFormat());
+        return pool.invoke(new StatsTask(wave, 0, wave.getTotalSamples(), clipLevel)).summary(wave.getSampleRate());
+    }
+
+    private static StatsAccumulator accumulate(Wave wave, float clipLevel) {
+        StatsAccumulator accumulator = new StatsAccumulator(wave.getChannels(), clipLevel);
+        float[] block = new float[BLOCK_FRAMES * wave.getChannels()];
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            int read;
+            while ((read = samples.readFrames(block, 0, BLOCK_FRAMES)) > 0) {
+                accumulator.accept(block, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return accumulator;
+    }
+
+    public int getChannels() {
+        return peak.length;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public float getPeak(int channel) {
+        return peak[channel];
+    }
+
+    public float getRms(int channel) {
+        return rms[channel];
+    }
+
+    public float getDcOffset(int channel) {
+        return dcOffset[channel];
+    }
+
+    // samples at the highest amplitude of the format or above
+    public long getClipped(int channel) {
+        return clipped[channel];
+    }
+
+    // sign changes per pair of consecutive frames, in [0, 1]
+    public float getZeroCrossingRate(int channel) {
+        return zeroCrossingRate[channel];
+    }
+
+    public float getZeroCrossingsPerSecond(int channel) {
+        return zeroCrossingRate[channel] * sampleRate;
+    }
+
+    // peak to RMS ratio, 0 for silence
+    public float getCrestFactor(int channel) {
+        return rms[channel] == 0 ? 0 : peak[channel] / rms[channel];
+    }
+
+    @Override
+    public String toString() {
+        return "WaveStats{" +
+                "sampleRate=" + sampleRate +
+                ", frames=" + frames +
+                ", peak=" + Arrays.toString(peak) +
+                ", rms=" + Arrays.toString(rms) +
+                ", dcOffset=" + Arrays.toString(dcOffset) +
+                ", clipped=" + Arrays.toString(clipped) +
+                ", zeroCrossingRate=" + Arrays.toString(zeroCrossingRate) +
+                '}';
+    }
+
+    private static class StatsTask extends RecursiveTask<StatsAccumulator> {
+
+        private static final long serialVersionUID = -3147707906211436170L;
+
+        private final Wave wave;
+
+        private final long fromFrame;
+
+        private final long toFrame;
+
+        private final float clipLevel;
+
+        private StatsTask(Wave wave, long fromFrame, long toFrame, float clipLevel) {
+            this.wave = wave;
+            this.fromFrame = fromFrame;
+            this.toFrame = toFrame;
+            this.clipLevel = clipLevel;
+        }
+
+        @Override
+        protected StatsAccumulator compute() {
+            // only seekable waves can be read from several places at once
+            if (wave instanceof SeekableWave && toFrame - fromFrame > MIN_FRAMES_PER_TASK) {
+                long middle = (fromFrame + toFrame) >>> 1;
+                StatsTask second = new StatsTask(wave, middle, toFrame, clipLevel);
+                second.fork();
+                StatsAccumulator first = new StatsTask(wave, fromFrame, middle, clipLevel).compute();
+                return first.merge(second.join());
+            }
+            Wave range = fromFrame == 0 && toFrame == wave.getTotalSamples() ? wave : wave.slice(fromFrame, toFrame);
+            return accumulate(range, clipLevel);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package co.davidmontano.onda.batch;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.WaveHeaderCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Runs an analysis over many wav files with at most maxInFlight of them open at a time.
+//
+// The calling thread hands out paths and receives the results: a new file is only started once a previous
+// result was accepted, so a slow consumer holds the workers back instead of piling up results, and the
+// number of open files never goes over maxInFlight. A file that fails (not audio, unsupported format, io
+// errors), or a directory the walk cannot read, is reported as a failed result and the batch goes on
+public class BatchEngine {
+
+    private static final AtomicInteger ENGINES = new AtomicInteger();
+
+    private final int maxInFlight;
+
+    private final boolean virtualThreads;
+
+    private final WaveHeaderCache headerCache;
+
+    public BatchEngine(int maxInFlight) {
+        this(maxInFlight, false);
+    }
+
+    public BatchEngine(int maxInFlight, boolean virtualThreads) {
+        // one pass over a corpus reads every header once, a private cache keeps it out of the shared one
+        this(maxInFlight, virtualThreads, new WaveHeaderCache(maxInFlight));
+    }
+
+    // Virtual threads are used when asked for and the runtime has them (JDK 21+), platform threads otherwise
+    public BatchEngine(int maxInFlight, boolean virtualThreads, WaveHeaderCache headerCache) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one file must be in flight: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.virtualThreads = virtualThreads;
+        this.headerCache = headerCache;
+    }
+
+    // Every .wav file under the directory, walked lazily
+    public <R> void run(Path directory, WaveAnalysis<R> analysis, Consumer<? super BatchResult<R>> results) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            Iterator<Path> waves = waves(directory, files.iterator(), results);
+            run(() -> waves, analysis, results);
+        }
+    }
+
+    // The walk throws UncheckedIOException for an entry it cannot visit and goes on with the next one when asked
+    // again, so the entry is reported as a failed result, on the calling thread like any other, and skipped
+    private static <R> Iterator<Path> waves(Path directory, Iterator<Path> walk, Consumer<? super BatchResult<R>> results) {
+        return new Iterator<Path>() {
+
+            private Path next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    try {
+                        if (!walk.hasNext()) {
+                            return false;
+                        }
+                        Path path = walk.next();
+                        if (Files.isRegularFile(path)
+                                && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".wav")) {
+                            next = path;
+                        }
+                    } catch (UncheckedIOException e) {
+                        results.accept(new BatchResult<>(failedPath(directory, e.getCause()), null, e.getCause(), 0));
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Path path = next;
+                next = null;
+                return path;
+            }
+        };
+    }
+
+    private static Path failedPath(Path directory, IOException failure) {
+        if (failure instanceof FileSystemException && ((FileSystemException) failure).getFile() != null) {
+            return Paths.get(((FileSystemException) failure).getFile());
+        }
+        return directory;
+    }
+
+    // Blocks until every path was analysed. Results are accepted on the calling thread, in completion order
+    public <R> void run(Iterable<Path> paths, WaveAnalysis<R> analysis, Consumer<? super BatchResult<R>> results) {
+        BlockingQueue<BatchResult<R>> completed = new LinkedBlockingQueue<>();
+        ExecutorService executor = executor();
+        try {
+            Iterator<Path> pending = paths.iterator();
+            int inFlight = 0;
+            while (inFlight > 0 || pending.hasNext()) {
+                if (inFlight < maxInFlight && pending.hasNext()) {
+                    Path path = pending.next();
+                    executor.execute(() -> completed.add(analyze(path, analysis)));
+                    inFlight++;
+                    continue;
+                }
+                BatchResult<R> result = completed.take();
+                inFlight--;
+                if (result.getFailure() instanceof Error) {
+                    throw (Error) result.getFailure();
+                }
+                results.accept(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch results", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <R> BatchResult<R> analyze(Path path, WaveAnalysis<R> analysis) {
+        long start = System.nanoTime();
+        try {
+            R result = analysis.analyze(new FileWave(path.toString(), headerCache));
+            return new BatchResult<>(path, result, null, System.nanoTime() - start);
+        } catch (Throwable e) {
+            // errors too, the calling thread would wait forever otherwise
+            return new BatchResult<>(path, null, e, System.nanoTime() - start);
+        }
+    }
+
+    private ExecutorService executor() {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // before JDK 21
+            }
+        }
+        return Executors.newFixedThreadPool(maxInFlight, new BatchThreadFactory());
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final int engine = ENGINES.incrementAndGet();
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "onda-batch-" + engine + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package co.davidmontano.onda.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Outcome of the analysis of one file: either a result or the failure that stopped it
+public class BatchResult<R> {
+
+    private final Path path;
+
+    private final R result;
+
+    private final Throwable failure;
+
+    private final long nanos;
+
+    BatchResult(Path path, R result, Throwable failure, long nanos) {
+        this.path = path;
+        this.result = result;
+        this.failure = failure;
+        this.nanos = nanos;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public R getResult() {
+        return result;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    // time spent opening and analysing the file
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "path=" + path +
+                ", result=" + result +
+                ", failure=" + failure +
+                ", nanos=" + nanos +
+                '}';
+    }
+}
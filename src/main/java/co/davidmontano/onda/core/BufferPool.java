@@ -0,0 +1,305 @@
+package co.davidmontano.onda.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Released buffers kept for reuse, in power of two size classes from MIN_SIZE to MAX_SIZE. They go to lists
+// shared by all threads, which never hold more than maxBytes, so a buffer released by a task is found by the
+// next one whatever thread runs it. Once the lists are full every platform thread keeps besides one buffer of
+// each class for itself, up to about 2 * MAX_SIZE per thread not counted in maxBytes; virtual threads keep none.
+// Bigger requests, and buffers released once both are full, are left to the garbage collector.
+//
+// Without leak tracking releasing a buffer again on the platform thread that released it is ignored, so it is
+// never pooled twice. With leak tracking on (-Donda.pool.debug=true for the shared pools) every acquisition
+// remembers where it happened until the buffer is released, and releasing a buffer twice fails
+public class BufferPool {
+
+    public static final int MIN_SIZE = 4 * 1024;
+
+    public static final int MAX_SIZE = 4 * 1024 * 1024;
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SHIFT + 1;
+
+    private static final boolean DEBUG = Boolean.getBoolean("onda.pool.debug");
+
+    // Thread.isVirtual() from Java 21 on, null before
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private static final BufferPool DIRECT = new BufferPool(true,
+            Long.getLong("onda.pool.direct.maxBytes", DEFAULT_MAX_BYTES), DEBUG);
+
+    private static final BufferPool HEAP = new BufferPool(false,
+            Long.getLong("onda.pool.heap.maxBytes", DEFAULT_MAX_BYTES), DEBUG);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final boolean direct;
+
+    private final long maxBytes;
+
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> shared = new ArrayList<>(CLASSES);
+
+    private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(ThreadCache::new);
+
+    // bytes in the shared lists, reserved before a buffer is added so the cap holds under contention
+    private final AtomicLong sharedBytes = new AtomicLong();
+
+    private final LongAdder inUseBytes = new LongAdder();
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder releases = new LongAdder();
+
+    private final LongAdder allocations = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    // acquired and not released buffers with the stack that acquired them, null without leak tracking
+    private final Map<ByteBuffer, Throwable> outstanding;
+
+    public BufferPool(boolean direct, long maxBytes, boolean trackLeaks) {
+        this.direct = direct;
+        this.maxBytes = maxBytes;
+        this.outstanding = trackLeaks ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+        for (int sizeClass = 0; sizeClass < CLASSES; sizeClass++) {
+            shared.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    // For io: channels read into and write from direct buffers without an intermediate copy
+    public static BufferPool direct() {
+        return DIRECT;
+    }
+
+    // For decoding: the sample kernels work on the backing arrays
+    public static BufferPool heap() {
+        return HEAP;
+    }
+
+    // A little endian buffer of at least bytes capacity, position 0 and limit bytes
+    public ByteBuffer acquire(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Negative size: " + bytes);
+        }
+        int sizeClass = sizeClass(bytes);
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            ThreadCache cache = cachesPerThread() ? threadCache.get() : null;
+            if (cache != null) {
+                buffer = cache.kept[sizeClass];
+                cache.kept[sizeClass] = null;
+            }
+            if (buffer == null) {
+                buffer = shared.get(sizeClass).poll();
+                if (buffer != null) {
+                    sharedBytes.addAndGet(-buffer.capacity());
+                    if (cache != null && cache.lastShared[sizeClass] == System.identityHashCode(buffer)) {
+                        cache.lastShared[sizeClass] = 0;
+                    }
+                }
+            }
+        }
+        if (buffer == null) {
+            buffer = allocate(sizeClass >= 0 ? MIN_SIZE << sizeClass : bytes);
+            allocations.increment();
+        }
+        acquisitions.increment();
+        inUseBytes.add(buffer.capacity());
+        if (outstanding != null) {
+            outstanding.put(buffer, new Throwable("Buffer of " + buffer.capacity() + " bytes acquired here"));
+        }
+        buffer.clear().limit(bytes);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (outstanding != null && outstanding.remove(buffer) == null) {
+            throw new IllegalStateException("Buffer released twice or not acquired from this pool: " + buffer);
+        }
+        int sizeClass = sizeClass(buffer.capacity());
+        ThreadCache cache = sizeClass >= 0 && cachesPerThread() ? threadCache.get() : null;
+        if (outstanding == null && cache != null && isPooled(cache, sizeClass, buffer)) {
+            return;
+        }
+        releases.increment();
+        inUseBytes.add(-buffer.capacity());
+        if (sizeClass < 0 || MIN_SIZE << sizeClass != buffer.capacity() || buffer.isDirect() != direct
+                || buffer.isReadOnly()) {
+            dropped.increment();
+            return;
+        }
+        long cached;
+        do {
+            cached = sharedBytes.get();
+            if (cached + buffer.capacity() > maxBytes) {
+                keepInThread(cache, sizeClass, buffer);
+                return;
+            }
+        } while (!sharedBytes.compareAndSet(cached, cached + buffer.capacity()));
+        shared.get(sizeClass).offer(buffer);
+        if (cache != null) {
+            cache.lastShared[sizeClass] = System.identityHashCode(buffer);
+        }
+    }
+
+    // Whether the buffer already waits in this thread's cache or, when it is the last this thread shared, in the
+    // shared list. Only then the list is searched, a buffer another thread released again is not noticed
+    private boolean isPooled(ThreadCache cache, int sizeClass, ByteBuffer buffer) {
+        return cache.kept[sizeClass] == buffer || cache.lastShared[sizeClass] == System.identityHashCode(buffer)
+                && shared.get(sizeClass).stream().anyMatch(pooled -> pooled == buffer);
+    }
+
+    private void keepInThread(ThreadCache cache, int sizeClass, ByteBuffer buffer) {
+        if (cache != null && cache.kept[sizeClass] == null) {
+            cache.kept[sizeClass] = buffer;
+            return;
+        }
+        dropped.increment();
+    }
+
+    // Virtual threads are too many and too short lived for a cache each
+    private static boolean cachesPerThread() {
+        if (IS_VIRTUAL == null) {
+            return true;
+        }
+        try {
+            return !(boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return true;
+        }
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Logs where every buffer still out was acquired. Returns how many there are, -1 without leak tracking
+    public int reportLeaks() {
+        if (outstanding == null) {
+            return -1;
+        }
+        List<Throwable> leaks;
+        synchronized (outstanding) {
+            leaks = new ArrayList<>(outstanding.values());
+        }
+        for (Throwable leak : leaks) {
+            logger.warn("Buffer not released", leak);
+        }
+        return leaks.size();
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        return direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+    }
+
+    // smallest class holding bytes, -1 above MAX_SIZE
+    private static int sizeClass(int bytes) {
+        if (bytes > MAX_SIZE) {
+            return -1;
+        }
+        if (bytes <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(bytes - 1) - MIN_SHIFT;
+    }
+
+    // Buffers a platform thread keeps for itself, and the identity hash of the last one it added to each shared
+    // list. Hashes rather than buffers so a buffer another thread took is not held here
+    private static final class ThreadCache {
+
+        private final ByteBuffer[] kept = new ByteBuffer[CLASSES];
+
+        private final int[] lastShared = new int[CLASSES];
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // bytes waiting in the shared lists, the per thread buffers are not counted
+    public long getSharedBytes() {
+        return sharedBytes.get();
+    }
+
+    // capacity of the buffers acquired and not released yet
+    public long getInUseBytes() {
+        return inUseBytes.sum();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getReleases() {
+        return releases.sum();
+    }
+
+    public long getAllocations() {
+        return allocations.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // acquisitions served without allocating
+    public double getHitRate() {
+        long acquisitions = getAcquisitions();
+        return acquisitions == 0 ? 0 : 1 - (double) getAllocations() / acquisitions;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{" +
+                "direct=" + direct +
+                ", maxBytes=" + maxBytes +
+                ", sharedBytes=" + getSharedBytes() +
+                ", inUseBytes=" + getInUseBytes() +
+                ", acquisitions=" + getAcquisitions() +
+                ", releases=" + getReleases() +
+                ", allocations=" + getAllocations() +
+                ", dropped=" + getDropped() +
+                '}';
+    }
+}
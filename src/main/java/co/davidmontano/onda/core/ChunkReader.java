@@ -3,8 +3,12 @@ package co.davidmontano.onda.core;
 import co.davidmontano.onda.core.exception.NotAudioException;
 import org.apache.commons.io.IOUtils;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -26,95 +30,93 @@ import java.util.Set;
  */
 public class ChunkReader implements Constants {
 
-    private final Set<Subchunk> subchunks;
+    // 4 bytes of chunkId, 4 bytes of chunkSize and 4 bytes for format
+    private static final int CHUNK_HEADER_SIZE = 12;
+
+    // 4 for subchunkId, 4 for subchunkSize
+    private static final int SUBCHUNK_HEADER_SIZE = 8;
+
+    // clears the lower case bit of every ASCII letter
+    private static final int UPPER_CASE_MASK = 0xDFDFDFDF;
+
+    private static final int RIFF_FOURCC = Subchunk.fourcc(RIFF_HEADER);
+
+    private static final int WAVE_FOURCC = Subchunk.fourcc(WAVE_HEADER);
+
+    // little endian, reused for every header
+    private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
 
     public ChunkReader() {
-        subchunks = new HashSet<>();
     }
 
-    public Set<Subchunk> read(InputStream inputStream, long totalSize) throws IOException {
-        // 4 bytes of chunkId, 4 bytes of chunkSize and 4 bytes for format
-        byte[] chunkBuffer = new byte[12];
-        IOUtils.readFully(inputStream, chunkBuffer);
-        // read chunk
-        int chunkPointer = 0;
-        // @formatter:off
-        String chunkId = new String(new byte[]{
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++]
-        });
-        // little endian
-        @SuppressWarnings("unused")
-        long chunkSize =
-                (long) (chunkBuffer[chunkPointer++] & 0xff) |
-                        (long) (chunkBuffer[chunkPointer++] & 0xff) << 8 |
-                        (long) (chunkBuffer[chunkPointer++] & 0xff) << 16 |
-                        (long) (chunkBuffer[chunkPointer++] & 0xff << 24);
-        String format = new String(new byte[]{
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++],
-                chunkBuffer[chunkPointer++]
-        });
-        // @formatter:on
-
-        checkChunkAndFormat(chunkId, format);
-
-        parseSubchunk(inputStream, chunkPointer, totalSize);
+    // Scans the whole file with positional reads, the position of the channel is not used
+    public Set<Subchunk> read(FileChannel channel) throws IOException {
+        long totalSize = channel.size();
+        readFully(channel, 0, CHUNK_HEADER_SIZE);
+        checkChunkAndFormat(header.getInt(0), header.getInt(8));
+
+        Set<Subchunk> subchunks = new HashSet<>();
+        long bytesRead = CHUNK_HEADER_SIZE;
+        while (bytesRead + SUBCHUNK_HEADER_SIZE <= totalSize) {
+            readFully(channel, bytesRead, SUBCHUNK_HEADER_SIZE);
+            bytesRead += SUBCHUNK_HEADER_SIZE;
+            Subchunk subchunk = subchunk(bytesRead, totalSize);
+            subchunks.add(subchunk);
+            bytesRead += subchunk.getSubchunkSize() + padding(subchunk.getSubchunkSize());
+        }
+        return Collections.unmodifiableSet(subchunks);
+    }
 
+    public Set<Subchunk> read(InputStream inputStream, long totalSize) throws IOException {
+        readFully(inputStream, CHUNK_HEADER_SIZE);
+        checkChunkAndFormat(header.getInt(0), header.getInt(8));
+
+        Set<Subchunk> subchunks = new HashSet<>();
+        long bytesRead = CHUNK_HEADER_SIZE;
+        while (bytesRead + SUBCHUNK_HEADER_SIZE <= totalSize) {
+            readFully(inputStream, SUBCHUNK_HEADER_SIZE);
+            bytesRead += SUBCHUNK_HEADER_SIZE;
+            Subchunk subchunk = subchunk(bytesRead, totalSize);
+            subchunks.add(subchunk);
+
+            long skip = Math.min(totalSize - bytesRead, subchunk.getSubchunkSize() + padding(subchunk.getSubchunkSize()));
+            IOUtils.skipFully(inputStream, skip);
+            bytesRead += skip;
+        }
         return Collections.unmodifiableSet(subchunks);
     }
 
+    private Subchunk subchunk(long offset, long totalSize) {
+        int subchunkId = header.getInt(0);
+        long subchunkSize = header.getInt(4) & 0xFFFFFFFFL;
+        // Avoid moving beyond the end of the file
+        // subChunkSize might be corrupt (bigger than size of the actual file)
+        subchunkSize = Math.min(totalSize - offset, subchunkSize);
+        return new Subchunk(subchunkId, offset, subchunkSize);
+    }
 
-    private void parseSubchunk(InputStream inputStream, long bytesRead, long totalSize) throws IOException {
-        if (bytesRead < totalSize) {
-            int subchunkPointer = 0;
-            // 4 for subchunkId, 4 for subchunkSize
-            byte[] subchunkHeaderBuffer = new byte[8];
-            IOUtils.readFully(inputStream, subchunkHeaderBuffer);
-            // @formatter:off
-            String subChunkId = new String(new byte[]{
-                    subchunkHeaderBuffer[subchunkPointer++],
-                    subchunkHeaderBuffer[subchunkPointer++],
-                    subchunkHeaderBuffer[subchunkPointer++],
-                    subchunkHeaderBuffer[subchunkPointer++]
-            });
-            long subChunkSize =
-                    (long) (subchunkHeaderBuffer[subchunkPointer++] & 0xff) |
-                            (long) (subchunkHeaderBuffer[subchunkPointer++] & 0xff) << 8 |
-                            (long) (subchunkHeaderBuffer[subchunkPointer++] & 0xff) << 16 |
-                            (long) (subchunkHeaderBuffer[subchunkPointer++] & 0xff) << 24;
-            // @formatter:on
-            bytesRead += subchunkPointer;
-
-            // Avoid moving beyond the end of the file
-            // subChunkSize might be corrupt (bigger than size of the actual file)
-            subChunkSize = Math.min(totalSize - bytesRead, subChunkSize);
-
-            subchunks.add(new Subchunk(subChunkId, bytesRead, subChunkSize));
-
-            IOUtils.skipFully(inputStream, subChunkSize);
-            bytesRead += subChunkSize;
-            bytesRead += skipPadding(inputStream, subChunkSize);
-
-            parseSubchunk(inputStream, bytesRead, totalSize);
+    private void readFully(FileChannel channel, long position, int length) throws IOException {
+        header.clear().limit(length);
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0) {
+                throw new EOFException("Length to read: " + length + " actual: " + header.position());
+            }
         }
     }
 
-    private int skipPadding(InputStream input, long subChunkSize) throws IOException {
-        if (subChunkSize % 2 != 0) {
-            IOUtils.skipFully(input, 1);
-            return 1;
-        } else {
-            return 0;
-        }
+    private void readFully(InputStream input, int length) throws IOException {
+        header.clear();
+        IOUtils.readFully(input, header.array(), 0, length);
+    }
+
+    private static int padding(long subChunkSize) {
+        return (int) (subChunkSize % 2);
     }
 
-    private void checkChunkAndFormat(String chunkId, String format) {
-        if (!chunkId.toUpperCase().equals(RIFF_HEADER) || !format.toUpperCase().equals(WAVE_HEADER)) {
-            throw new NotAudioException("Header: Unsupported header format. (" + chunkId + "|" + format + ")");
+    static void checkChunkAndFormat(int chunkId, int format) {
+        if ((chunkId & UPPER_CASE_MASK) != RIFF_FOURCC || (format & UPPER_CASE_MASK) != WAVE_FOURCC) {
+            throw new NotAudioException("Header: Unsupported header format. (" + Subchunk.fourccToString(chunkId)
+                    + "|" + Subchunk.fourccToString(format) + ")");
         }
     }
 
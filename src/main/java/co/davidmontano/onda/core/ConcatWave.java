@@ -0,0 +1,218 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Waves of the same format played one after the other. Parts are only opened when reached
+class ConcatWave implements Wave {
+
+    protected final Wave[] parts;
+
+    // first frame of every part, plus the total frames at the end
+    protected final long[] starts;
+
+    protected final int frameSize;
+
+    ConcatWave(Wave[] parts) {
+        this.parts = parts;
+        this.starts = new long[parts.length + 1];
+        for (int part = 0; part < parts.length; part++) {
+            starts[part + 1] = starts[part] + parts[part].getTotalSamples();
+        }
+        this.frameSize = parts[0].getBytePerSample() * parts[0].getChannels();
+    }
+
+    static Wave of(Wave... waves) {
+        if (waves.length == 0) {
+            throw new IllegalArgumentException("Nothing to concatenate");
+        }
+        // nested concatenations are flattened, so reads never go through more than one level
+        List<Wave> parts = new ArrayList<>();
+        for (Wave wave : waves) {
+            if (wave instanceof ConcatWave) {
+                parts.addAll(Arrays.asList(((ConcatWave) wave).parts));
+            } else {
+                parts.add(wave);
+            }
+        }
+        Wave first = parts.get(0);
+        boolean seekable = true;
+        for (Wave part : parts) {
+            if (part.getChannels() != first.getChannels() || part.getSampleFormat() != first.getSampleFormat()
+                    || part.getSampleRate() != first.getSampleRate()) {
+                throw new IllegalArgumentException("Format of " + part + " does not match " + first);
+            }
+            if (!part.isLengthKnown()) {
+                throw new IllegalArgumentException("Cannot concatenate a wave of unknown length: " + part);
+            }
+            seekable &= part instanceof SeekableWave;
+        }
+        if (parts.size() == 1) {
+            return first;
+        }
+        Wave[] array = parts.toArray(new Wave[parts.size()]);
+        return seekable ? new SeekableConcatWave(array) : new ConcatWave(array);
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    @Override
+    public ReadableByteChannel dataChannel() {
+        return new ConcatChannel();
+    }
+
+    @Override
+    public int getChannels() {
+        return parts[0].getChannels();
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return parts[0].getBytePerSample();
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return parts[0].getSampleFormat();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return parts[0].getSampleRate();
+    }
+
+    @Override
+    public long getTotalSamples() {
+        return starts[parts.length];
+    }
+
+    @Override
+    public Wave trim(double seconds) {
+        return slice(0, (long) Math.min(getTotalSamples(), getSampleRate() * seconds));
+    }
+
+    // Concatenation of the slices of the parts overlapping [startFrame, endFrame)
+    @Override
+    public Wave slice(long startFrame, long endFrame) {
+        SlicedWave.checkRange(this, startFrame, endFrame);
+        int first = part(startFrame);
+        List<Wave> sliced = new ArrayList<>();
+        for (int part = first; part < parts.length && (part == first || starts[part] < endFrame); part++) {
+            long from = Math.max(startFrame, starts[part]) - starts[part];
+            long to = Math.min(endFrame, starts[part + 1]) - starts[part];
+            sliced.add(parts[part].slice(from, to));
+        }
+        return of(sliced.toArray(new Wave[sliced.size()]));
+    }
+
+    // Part holding the frame, the last one for the frame right after the end
+    protected int part(long frame) {
+        int part = Arrays.binarySearch(starts, 0, parts.length, frame);
+        if (part < 0) {
+            part = -part - 2;
+        }
+        // empty parts share their start with the next one
+        while (part + 1 < parts.length && starts[part + 1] <= frame) {
+            part++;
+        }
+        return part;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "parts=" + Arrays.toString(parts) +
+                '}';
+    }
+
+    private class ConcatChannel implements ReadableByteChannel {
+
+        private int part = -1;
+
+        private ReadableByteChannel channel;
+
+        private long remaining;
+
+        private boolean open = true;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            while (true) {
+                if (channel == null || remaining <= 0) {
+                    if (!next()) {
+                        return -1;
+                    }
+                    continue;
+                }
+                int limit = dst.limit();
+                if (dst.remaining() > remaining) {
+                    dst.limit(dst.position() + (int) remaining);
+                }
+                int read;
+                try {
+                    read = channel.read(dst);
+                } finally {
+                    dst.limit(limit);
+                }
+                if (read < 0) {
+                    // shorter than announced, as streams of unknown size
+                    remaining = 0;
+                    continue;
+                }
+                remaining -= read;
+                return read;
+            }
+        }
+
+        private boolean next() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (part + 1 >= parts.length) {
+                return false;
+            }
+            part++;
+            channel = parts[part].dataChannel();
+            remaining = parts[part].getTotalSamples() * frameSize;
+            return true;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
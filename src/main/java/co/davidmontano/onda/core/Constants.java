@@ -6,6 +6,10 @@ public interface Constants {
     String WAVE_HEADER = "WAVE";
     String FMT_HEADER_ID = "fmt ";
     String DATA_HEADER_ID = "data";
+    String FACT_HEADER_ID = "fact";
     int AUDIO_FORMAT_PCM = 1;
+    int AUDIO_FORMAT_IEEE_FLOAT = 3;
+    // the actual format is in the first two bytes of the sub format GUID
+    int AUDIO_FORMAT_EXTENSIBLE = 0xFFFE;
 
 }
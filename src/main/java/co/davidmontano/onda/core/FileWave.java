@@ -1,16 +1,12 @@
 package co.davidmontano.onda.core;
 
-import co.davidmontano.onda.core.exception.BitrateNotSupportedException;
-import co.davidmontano.onda.core.exception.CannotReadWaveFileException;
-import co.davidmontano.onda.core.exception.NotPCMAudioFormatException;
 import co.davidmontano.onda.core.exception.SubchunkNotFoundException;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.util.HashSet;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Set;
 
 /**
@@ -28,7 +24,7 @@ import java.util.Set;
  * See the License for the specific language governing permissions an
  * limitations under the License.
  */
-public class FileWave implements Wave, Constants {
+public class FileWave implements SeekableWave, Constants {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -37,48 +33,61 @@ public class FileWave implements Wave, Constants {
     private final long totalSamples;
 
     private final Set<Subchunk> subchunks;
-    private int audioFormat; // unsigned 2 bytes, little endian
-    private int channels; // unsigned 2 bytes, lqittle endian
-    private long sampleRate; // unsigned 4 bytes, little endian
-    private long byteRate; // unsigned 4 bytes, little endian
-    private int blockAlign; // unsigned 2 bytes, little endian
-    private int bitsPerSample; // unsigned 2 bytes, little endian
+    // data subchunk of this wave, narrower than the one in the file when sliced
+    private final Subchunk data;
+    private final int audioFormat; // unsigned 2 bytes, little endian
+    private final int channels; // unsigned 2 bytes, lqittle endian
+    private final long sampleRate; // unsigned 4 bytes, little endian
+    private final long byteRate; // unsigned 4 bytes, little endian
+    private final int blockAlign; // unsigned 2 bytes, little endian
+    private final int bitsPerSample; // unsigned 2 bytes, little endian
+    private final SampleFormat sampleFormat;
+    // opened while some data channel of this wave or its slices is
+    private final SharedFileChannel file;
 
     public FileWave(String location) throws IOException {
-        this.location = location;
-
-        File file = new File(location);
-        long totalSize = FileUtils.sizeOf(file);
-
-        subchunks = new ChunkReader().read(waveInputStream(), totalSize);
+        this(location, WaveHeaderCache.getDefault());
+    }
 
-        Subchunk fmt = findSubchunk(FMT_HEADER_ID);
-        byte[] fmtData = IOUtils.toByteArray(fmt.subchunkData(waveInputStream()));
-        readFmtHeader(fmtData);
+    public FileWave(String location, WaveHeaderCache headerCache) throws IOException {
+        this.location = location;
 
-        Subchunk data = findSubchunk(DATA_HEADER_ID);
+        WaveHeader header = headerCache.get(location);
+        sampleFormat = header.getSampleFormat();
+        subchunks = header.getSubchunks();
+        audioFormat = header.getAudioFormat();
+        channels = header.getChannels();
+        sampleRate = header.getSampleRate();
+        byteRate = header.getByteRate();
+        blockAlign = header.getBlockAlign();
+        bitsPerSample = header.getBitsPerSample();
+
+        file = new SharedFileChannel(location);
+        data = findSubchunk(DATA_HEADER_ID);
         long dataChunkSize = data.getSubchunkSize();
 
         bytePerSample = bitsPerSample / 8;
-        totalSamples = dataChunkSize / bytePerSample;
+        // one sample per frame: every channel amplitude at a given time
+        totalSamples = dataChunkSize / (bytePerSample * channels);
 
-        checkAcceptableWavProperties();
         logger.debug("FileWave parsed: {}", this);
     }
 
-    private FileWave(String location, int bytePerSample, long totalSamples, Set<Subchunk> subchunks){
-        this.location = location;
-        this.bytePerSample = bytePerSample;
+    // Shares everything but the data subchunk with the source
+    private FileWave(FileWave source, Subchunk data, long totalSamples) {
+        this.location = source.location;
+        this.bytePerSample = source.bytePerSample;
         this.totalSamples = totalSamples;
-        this.subchunks = subchunks;
-    }
-
-    private InputStream waveInputStream() {
-        try {
-            return new FileInputStream(location);
-        } catch (FileNotFoundException e) {
-            throw new CannotReadWaveFileException(e);
-        }
+        this.subchunks = source.subchunks;
+        this.data = data;
+        this.audioFormat = source.audioFormat;
+        this.channels = source.channels;
+        this.sampleRate = source.sampleRate;
+        this.byteRate = source.byteRate;
+        this.blockAlign = source.blockAlign;
+        this.bitsPerSample = source.bitsPerSample;
+        this.sampleFormat = source.sampleFormat;
+        this.file = source.file;
     }
 
     private Subchunk findSubchunk(String subchunkId) {
@@ -90,33 +99,27 @@ public class FileWave implements Wave, Constants {
         throw new SubchunkNotFoundException(subchunkId);
     }
 
-    private void readFmtHeader(byte[] headerBuffer) {
-        int pointer = 0;
-        audioFormat = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
-        channels = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
-        sampleRate = (long) (headerBuffer[pointer++] & 0xff) | (long) (headerBuffer[pointer++] & 0xff) << 8 | (long) (headerBuffer[pointer++] & 0xff) << 16
-                | (long) (headerBuffer[pointer++] & 0xff) << 24;
-        byteRate = (long) (headerBuffer[pointer++] & 0xff) | (long) (headerBuffer[pointer++] & 0xff) << 8 | (long) (headerBuffer[pointer++] & 0xff) << 16
-                | (long) (headerBuffer[pointer++] & 0xff) << 24;
-        blockAlign = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
-        bitsPerSample = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
     }
 
+    // Every channel of this wave and its slices reads from one file descriptor, open while any of them is
+    @Override
+    public SeekableByteChannel dataChannel() {
+        return new SubchunkChannel(data, file);
+    }
 
-    private void checkAcceptableWavProperties() {
-        if (audioFormat != AUDIO_FORMAT_PCM) {
-            throw new NotPCMAudioFormatException("Invalid audio format {" + audioFormat + "}");
-        }
-        if (bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 32) {
-            throw new BitrateNotSupportedException("Bitrate not supported: " + bitsPerSample + ". Use either 8, 16, 32");
-        }
+    SharedFileChannel getFile() {
+        return file;
     }
 
-    @Override
-    public InputStream data() {
-        InputStream input = waveInputStream();
-        Subchunk dataSubchunk = findSubchunk("data");
-        return dataSubchunk.subchunkData(input);
+    String getLocation() {
+        return location;
+    }
+
+    Subchunk getDataSubchunk() {
+        return data;
     }
 
     public long getTotalSamplesForTime(double seconds) {
@@ -133,6 +136,11 @@ public class FileWave implements Wave, Constants {
         return bytePerSample;
     }
 
+    @Override
+    public SampleFormat getSampleFormat() {
+        return sampleFormat;
+    }
+
     public int getAudioFormat() {
         return audioFormat;
     }
@@ -142,6 +150,7 @@ public class FileWave implements Wave, Constants {
         return channels;
     }
 
+    @Override
     public int getSampleRate() {
         return (int) sampleRate;
     }
@@ -164,23 +173,17 @@ public class FileWave implements Wave, Constants {
 
     @Override
     public FileWave trim(double seconds){
-        long trimmedTotalSamples = getTotalSamplesForTime(seconds);
-        long trimmedSubchunkSize = trimmedTotalSamples * bytePerSample * channels;
-
-        Subchunk untrimmedData = findSubchunk(DATA_HEADER_ID);
-        Set<Subchunk> trimmedSubchuks = new HashSet<>(subchunks);
-        trimmedSubchuks.remove(untrimmedData);
-        trimmedSubchuks.add(new Subchunk(DATA_HEADER_ID, untrimmedData.getOffset(), trimmedSubchunkSize));
-
-        FileWave trimmedWave = new FileWave(location, bytePerSample, trimmedTotalSamples, trimmedSubchuks);
-        trimmedWave.audioFormat = this.audioFormat;
-        trimmedWave.channels = this.channels;
-        trimmedWave.sampleRate = this.sampleRate;
-        trimmedWave.byteRate = this.byteRate;
-        trimmedWave.blockAlign = this.blockAlign;
-        trimmedWave.bitsPerSample = this.bitsPerSample;
+        return slice(0, getTotalSamplesForTime(seconds));
+    }
 
-        return trimmedWave;
+    // Same file, data subchunk narrowed to the frames in [startFrame, endFrame)
+    @Override
+    public FileWave slice(long startFrame, long endFrame) {
+        SlicedWave.checkRange(this, startFrame, endFrame);
+        long frameSize = bytePerSample * channels;
+        Subchunk sliced = new Subchunk(DATA_HEADER_ID, data.getOffset() + startFrame * frameSize,
+                (endFrame - startFrame) * frameSize);
+        return new FileWave(this, sliced, endFrame - startFrame);
     }
 
     @Override
@@ -192,9 +195,11 @@ public class FileWave implements Wave, Constants {
                 ", byteRate=" + byteRate +
                 ", blockAlign=" + blockAlign +
                 ", bitsPerSample=" + bitsPerSample +
+                ", sampleFormat=" + sampleFormat +
                 ", bytePerSample=" + bytePerSample +
                 ", totalSamples=" + totalSamples +
                 ", subchunks=" + subchunks +
+                ", data=" + data +
                 '}';
     }
 
@@ -0,0 +1,144 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class FrameSpliterator implements Spliterator<Sample> {
+
+    // smaller ranges are not worth their own channel
+    private static final long MIN_SPLIT_FRAMES = 1 << 16;
+
+    private final Wave wave;
+
+    private long from;
+
+    // to is Long.MAX_VALUE and the end is found reading when the length of the wave is unknown
+    private final long to;
+
+    private final boolean sized;
+
+    private SamplesIterator samples;
+
+    // readers of this spliterator and of every split of it still open, closed all together by close()
+    private final Queue<SamplesIterator> opened;
+
+    public FrameSpliterator(Wave wave) {
+        this(wave, 0, wave.isLengthKnown() ? wave.getTotalSamples() : Long.MAX_VALUE);
+    }
+
+    public FrameSpliterator(Wave wave, long from, long to) {
+        this(wave, from, to, new ConcurrentLinkedQueue<>());
+    }
+
+    private FrameSpliterator(Wave wave, long from, long to, Queue<SamplesIterator> opened) {
+        this.wave = wave;
+        this.from = from;
+        this.to = to;
+        this.sized = wave.isLengthKnown();
+        this.opened = opened;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Sample> action) {
+        if (from >= to) {
+            return false;
+        }
+        if (!sized && !samples().hasNext()) {
+            from = to;
+            finish();
+            return false;
+        }
+        action.accept(samples().next());
+        from++;
+        if (from >= to) {
+            finish();
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Sample> action) {
+        if (from < to) {
+            SamplesIterator iterator = samples();
+            for (; from < to && (sized || iterator.hasNext()); from++) {
+                action.accept(iterator.next());
+            }
+            from = to;
+            finish();
+        }
+    }
+
+    // Only seekable waves split: every half reads its own frame range through its own channel
+    @Override
+    public Spliterator<Sample> trySplit() {
+        if (!(wave instanceof SeekableWave) || !sized || samples != null || to - from < 2 * MIN_SPLIT_FRAMES) {
+            return null;
+        }
+        long middle = from + (to - from) / 2;
+        FrameSpliterator prefix = new FrameSpliterator(wave, from, middle, opened);
+        from = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return sized ? ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE : ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    private SamplesIterator samples() {
+        if (samples == null) {
+            samples = new SamplesIterator(wave);
+            opened.add(samples);
+            samples.seek(from);
+        }
+        return samples;
+    }
+
+    // The range is exhausted, its reader is not needed anymore
+    private void finish() {
+        if (samples != null) {
+            opened.remove(samples);
+            close(samples);
+        }
+    }
+
+    // Closes the readers still open, as those of a stream that short-circuited or failed. Streams of frames
+    // call it when they are closed
+    public void close() {
+        SamplesIterator reader;
+        while ((reader = opened.poll()) != null) {
+            close(reader);
+        }
+    }
+
+    private static void close(SamplesIterator reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class MappedWave implements SeekableWave {
+
+    // a single mapping cannot address more than Integer.MAX_VALUE bytes
+    private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final FileWave wave;
+
+    private final ByteBuffer[] regions;
+
+    private final int frameSize;
+
+    private final long framesPerRegion;
+
+    // position of the first frame of this wave in the regions, not 0 when sliced
+    private final long firstFrame;
+
+    public MappedWave(String location) throws IOException {
+        this(new FileWave(location));
+    }
+
+    public MappedWave(FileWave wave) throws IOException {
+        this.wave = wave;
+        this.frameSize = wave.getBytePerSample() * wave.getChannels();
+        this.framesPerRegion = MAX_REGION_SIZE / frameSize;
+        this.regions = map(wave.getLocation(), wave.getDataSubchunk().getOffset(), wave.getTotalSamples());
+        this.firstFrame = 0;
+    }
+
+    private MappedWave(FileWave wave, ByteBuffer[] regions, long firstFrame) {
+        this.wave = wave;
+        this.frameSize = wave.getBytePerSample() * wave.getChannels();
+        this.framesPerRegion = MAX_REGION_SIZE / frameSize;
+        this.regions = regions;
+        this.firstFrame = firstFrame;
+    }
+
+    private ByteBuffer[] map(String location, long offset, long totalFrames) throws IOException {
+        int regionCount = (int) ((totalFrames + framesPerRegion - 1) / framesPerRegion);
+        ByteBuffer[] mapped = new ByteBuffer[regionCount];
+        // mappings stay valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(Paths.get(location), StandardOpenOption.READ)) {
+            WaveMetrics.notifyFileOpened(location);
+            for (int region = 0; region < regionCount; region++) {
+                long firstFrame = region * framesPerRegion;
+                long frames = Math.min(framesPerRegion, totalFrames - firstFrame);
+                mapped[region] = channel.map(FileChannel.MapMode.READ_ONLY, offset + firstFrame * frameSize, frames * frameSize);
+            }
+        }
+        return mapped;
+    }
+
+    // Zero-copy view over the frames starting at firstFrame. The view never crosses a mapped region,
+    // so it might hold fewer than maxFrames frames: callers iterate until they get what they need
+    public ByteBuffer frames(long firstFrame, int maxFrames) {
+        if (firstFrame < 0 || firstFrame >= getTotalSamples()) {
+            throw new IndexOutOfBoundsException("Frame " + firstFrame + " out of [0, " + getTotalSamples() + ")");
+        }
+        long mappedFrame = this.firstFrame + firstFrame;
+        int region = (int) (mappedFrame / framesPerRegion);
+        long regionFirstFrame = region * framesPerRegion;
+        long regionEnd = Math.min(regionFirstFrame + framesPerRegion, this.firstFrame + getTotalSamples());
+        int frames = (int) Math.min(maxFrames, regionEnd - mappedFrame);
+
+        ByteBuffer view = regions[region].duplicate();
+        int start = (int) ((mappedFrame - regionFirstFrame) * frameSize);
+        view.limit(start + frames * frameSize).position(start);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    FileWave getFileWave() {
+        return wave;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    @Override
+    public SeekableByteChannel dataChannel() {
+        return new RegionsChannel();
+    }
+
+    @Override
+    public int getChannels() {
+        return wave.getChannels();
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return wave.getBytePerSample();
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return wave.getSampleFormat();
+    }
+
+    @Override
+    public long getTotalSamples() {
+        return wave.getTotalSamples();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return wave.getSampleRate();
+    }
+
+    public int getBitsPerSample() {
+        return wave.getBitsPerSample();
+    }
+
+    public double getLength() {
+        return wave.getLength();
+    }
+
+    @Override
+    public MappedWave trim(double seconds) {
+        return slice(0, wave.getTotalSamplesForTime(seconds));
+    }
+
+    // Shares the mapped regions, nothing is mapped again
+    @Override
+    public MappedWave slice(long startFrame, long endFrame) {
+        return new MappedWave(wave.slice(startFrame, endFrame), regions, firstFrame + startFrame);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedWave{" +
+                "wave=" + wave +
+                ", regions=" + regions.length +
+                ", firstFrame=" + firstFrame +
+                '}';
+    }
+
+    private class RegionsChannel implements SeekableByteChannel {
+
+        private final long size = getTotalSamples() * frameSize;
+
+        private final long regionSize = framesPerRegion * frameSize;
+
+        private final long offset = firstFrame * frameSize;
+
+        private long position = 0;
+
+        private boolean open = true;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= size) {
+                return -1;
+            }
+            long mappedPosition = offset + position;
+            int region = (int) (mappedPosition / regionSize);
+            ByteBuffer source = regions[region].duplicate();
+            source.position((int) (mappedPosition - region * regionSize));
+            long wanted = Math.min(dst.remaining(), size - position);
+            if (source.remaining() > wanted) {
+                source.limit((int) (source.position() + wanted));
+            }
+            int read = source.remaining();
+            dst.put(source);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public RegionsChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position: " + newPosition);
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return size;
+        }
+
+        @Override
+        public RegionsChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.PoolExhaustedException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Decodes waves into direct planar float buffers, one per channel. The pool never holds more than maxBytes,
+// counting buffers in use and released ones kept for reuse
+public class PlanarBufferPool {
+
+    private static final int BLOCK_FRAMES = 8192;
+
+    private final long maxBytes;
+
+    // released buffers, waiting for a decode that fits in them
+    private final List<ByteBuffer> free = new ArrayList<>();
+
+    private long allocatedBytes;
+
+    public PlanarBufferPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Reads the whole wave once. Throws PoolExhaustedException when its buffers do not fit in the pool right now
+    public PlanarSamples decode(Wave wave) {
+        if (!wave.isLengthKnown()) {
+            throw new IllegalArgumentException("Cannot size the buffers of a wave of unknown length: " + wave);
+        }
+        long frames = wave.getTotalSamples();
+        if (frames * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many frames for a float buffer: " + frames);
+        }
+        int channels = wave.getChannels();
+        ByteBuffer[] buffers = new ByteBuffer[channels];
+        try {
+            for (int channel = 0; channel < channels; channel++) {
+                buffers[channel] = acquire((int) frames * 4);
+            }
+        } catch (PoolExhaustedException e) {
+            release(buffers);
+            throw e;
+        }
+
+        FloatBuffer[] planes = new FloatBuffer[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            buffers[channel].clear().limit((int) frames * 4);
+            planes[channel] = buffers[channel].asFloatBuffer();
+        }
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            float[] block = new float[BLOCK_FRAMES * channels];
+            int framesRead;
+            while ((framesRead = samples.readFrames(block, 0, BLOCK_FRAMES)) > 0) {
+                for (int channel = 0; channel < channels; channel++) {
+                    FloatBuffer plane = planes[channel];
+                    for (int frame = 0, index = channel; frame < framesRead; frame++, index += channels) {
+                        plane.put(block[index]);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            release(buffers);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+        }
+        return new PlanarSamples(this, buffers, planes, wave.getSampleRate());
+    }
+
+    // Best fit among the released buffers, a new one when none fits and there is room
+    private synchronized ByteBuffer acquire(int bytes) {
+        ByteBuffer best = null;
+        for (ByteBuffer buffer : free) {
+            if (buffer.capacity() >= bytes && (best == null || buffer.capacity() < best.capacity())) {
+                best = buffer;
+            }
+        }
+        if (best != null) {
+            free.remove(best);
+            return best;
+        }
+        // released buffers too small for this decode are dropped to make room
+        while (allocatedBytes + bytes > maxBytes && !free.isEmpty()) {
+            allocatedBytes -= free.remove(free.size() - 1).capacity();
+        }
+        if (allocatedBytes + bytes > maxBytes) {
+            throw new PoolExhaustedException("Cannot allocate " + bytes + " bytes: " + allocatedBytes + " of "
+                    + maxBytes + " bytes in use");
+        }
+        allocatedBytes += bytes;
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    synchronized void release(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer != null) {
+                free.add(buffer);
+            }
+        }
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getFreeBytes() {
+        long bytes = 0;
+        for (ByteBuffer buffer : free) {
+            bytes += buffer.capacity();
+        }
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
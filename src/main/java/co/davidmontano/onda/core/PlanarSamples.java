@@ -0,0 +1,98 @@
+package co.davidmontano.onda.core;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// A decoded wave, one direct float buffer per channel. Every retain() needs a release(): the buffers go back
+// to the pool with the last one, and cannot be used from then on
+public class PlanarSamples implements Closeable {
+
+    private final PlanarBufferPool pool;
+
+    private final ByteBuffer[] buffers;
+
+    private final FloatBuffer[] planes;
+
+    private final int sampleRate;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    PlanarSamples(PlanarBufferPool pool, ByteBuffer[] buffers, FloatBuffer[] planes, int sampleRate) {
+        this.pool = pool;
+        this.buffers = buffers;
+        this.planes = planes;
+        this.sampleRate = sampleRate;
+    }
+
+    public PlanarSamples retain() {
+        if (references.getAndIncrement() <= 0) {
+            references.getAndDecrement();
+            throw new IllegalStateException("Samples already released");
+        }
+        return this;
+    }
+
+    public void release() {
+        int left = references.decrementAndGet();
+        if (left == 0) {
+            pool.release(buffers);
+        } else if (left < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Samples already released");
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    // Read only view of the amplitudes of the channel, from position 0 to the last frame.
+    // Views must not be used after the release
+    public FloatBuffer channel(int channel) {
+        ensureRetained();
+        FloatBuffer view = planes[channel].asReadOnlyBuffer();
+        view.flip();
+        return view;
+    }
+
+    public float amplitude(int channel, int frame) {
+        ensureRetained();
+        return planes[channel].get(frame);
+    }
+
+    public int getChannels() {
+        return planes.length;
+    }
+
+    public int getFrames() {
+        return planes.length == 0 ? 0 : planes[0].position();
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    private void ensureRetained() {
+        if (references.get() <= 0) {
+            throw new IllegalStateException("Samples already released");
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package co.davidmontano.onda.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Reads a subchunk through a ring of depth direct buffers of blockSize bytes. Every block but the one being
+// consumed is being read, or was read, by the asynchronous channel, so the caller decodes a block while
+// the next ones come from the disk. Waiting for a block that is not there yet is reported as a stall.
+// Every channel opens its own asynchronous file: the descriptor of a FileWave is not shared with it
+class PrefetchingChannel implements SeekableByteChannel {
+
+    private final AsynchronousFileChannel file;
+
+    private final long offset;
+
+    private final long size;
+
+    private final int blockSize;
+
+    // pooled direct buffers, given back on close
+    private final ByteBuffer[] ring;
+
+    private final Future<?>[] pending;
+
+    // subchunk position of the first byte of every block in the ring
+    private final long[] blockStart;
+
+    // slot of the block being consumed, or the next one to wait for
+    private int head;
+
+    // consumed block, null until the one at head is ready
+    private ByteBuffer current;
+
+    private long nextFetch;
+
+    private long position;
+
+    PrefetchingChannel(String location, Subchunk subchunk, int blockSize, int depth) throws IOException {
+        this.file = AsynchronousFileChannel.open(Paths.get(location), StandardOpenOption.READ);
+        WaveMetrics.notifyFileOpened(location);
+        this.offset = subchunk.getOffset();
+        this.size = subchunk.getSubchunkSize();
+        this.blockSize = blockSize;
+        this.ring = new ByteBuffer[depth];
+        this.pending = new Future<?>[depth];
+        this.blockStart = new long[depth];
+        try {
+            for (int slot = 0; slot < depth; slot++) {
+                ring[slot] = BufferPool.direct().acquire(blockSize);
+            }
+            restart(0);
+        } catch (IOException | RuntimeException | Error e) {
+            // nobody gets the channel to close it
+            try {
+                close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        if (current != null && !current.hasRemaining()) {
+            // consumed: the slot goes back to the disk for the block after the last one asked for
+            fetch(head);
+            head = (head + 1) % ring.length;
+            current = null;
+        }
+        if (current == null) {
+            current = await(head);
+            if (current == null) {
+                return -1;
+            }
+        }
+        int read = Math.min(dst.remaining(), current.remaining());
+        int limit = current.limit();
+        current.limit(current.position() + read);
+        dst.put(current);
+        current.limit(limit);
+        position += read;
+        return read;
+    }
+
+    private void fetch(int slot) {
+        if (nextFetch >= size) {
+            pending[slot] = null;
+            return;
+        }
+        ByteBuffer buffer = ring[slot];
+        buffer.clear();
+        buffer.limit((int) Math.min(blockSize, size - nextFetch));
+        blockStart[slot] = nextFetch;
+        pending[slot] = file.read(buffer, offset + nextFetch);
+        nextFetch += buffer.limit();
+    }
+
+    // The block of the slot, flipped for reading, once every byte of it arrived
+    private ByteBuffer await(int slot) throws IOException {
+        Future<?> read = pending[slot];
+        if (read == null) {
+            return null;
+        }
+        long start = read.isDone() ? 0 : System.nanoTime();
+        complete(read);
+        if (start != 0) {
+            WaveMetrics.notifyStalled(System.nanoTime() - start);
+        }
+        pending[slot] = null;
+        ByteBuffer buffer = ring[slot];
+        // asynchronous reads may return short, the rest is read here
+        while (buffer.hasRemaining()) {
+            Integer more = complete(file.read(buffer, offset + blockStart[slot] + buffer.position()));
+            if (more < 0) {
+                throw new EOFException("Data subchunk ends at " + (blockStart[slot] + buffer.position())
+                        + ", expected " + size + " bytes");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Integer complete(Future<?> read) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return (Integer) read.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Drops the ring and starts prefetching again from newPosition. Reads in flight still write into the
+    // buffers, so they are waited for first
+    private void restart(long newPosition) throws IOException {
+        drain();
+        head = 0;
+        current = null;
+        nextFetch = newPosition;
+        for (int slot = 0; slot < ring.length; slot++) {
+            fetch(slot);
+        }
+    }
+
+    private void drain() {
+        for (int slot = 0; slot < ring.length; slot++) {
+            if (pending[slot] != null) {
+                try {
+                    complete(pending[slot]);
+                } catch (IOException e) {
+                    // the block is not wanted anymore
+                }
+                pending[slot] = null;
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    // Moving inside the consumed block keeps the ring, anywhere else restarts it
+    @Override
+    public PrefetchingChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        if (current != null && newPosition >= blockStart[head] && newPosition < blockStart[head] + current.limit()) {
+            current.position((int) (newPosition - blockStart[head]));
+        } else if (newPosition < size) {
+            restart(newPosition);
+        } else {
+            current = null;
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public PrefetchingChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return file.isOpen();
+    }
+
+    // The buffers go back to the pool once no read in flight can write into them
+    @Override
+    public void close() throws IOException {
+        if (!file.isOpen()) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            file.close();
+            current = null;
+            for (ByteBuffer buffer : ring) {
+                // null when the constructor failed before acquiring it
+                if (buffer != null) {
+                    BufferPool.direct().release(buffer);
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!file.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.CannotReadWaveFileException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// FileWave whose data is read ahead: up to depth blocks of blockSize bytes are read asynchronously while the
+// samples already read are decoded. Worth it when reads are slow, as on network storage. Unlike the readers of
+// a FileWave, which share its file descriptor, every data channel opens the file again and costs one descriptor
+public class PrefetchingWave implements SeekableWave {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    public static final int DEFAULT_DEPTH = 4;
+
+    private final FileWave wave;
+
+    private final int blockSize;
+
+    private final int depth;
+
+    public PrefetchingWave(String location) throws IOException {
+        this(new FileWave(location));
+    }
+
+    public PrefetchingWave(FileWave wave) {
+        this(wave, DEFAULT_BLOCK_SIZE, DEFAULT_DEPTH);
+    }
+
+    public PrefetchingWave(FileWave wave, int blockSize, int depth) {
+        if (blockSize < 1 || depth < 1) {
+            throw new IllegalArgumentException("Block size and depth must be positive: " + blockSize + ", " + depth);
+        }
+        this.wave = wave;
+        this.blockSize = blockSize;
+        this.depth = depth;
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    @Override
+    public SeekableByteChannel dataChannel() {
+        try {
+            return new PrefetchingChannel(wave.getLocation(), wave.getDataSubchunk(), blockSize, depth);
+        } catch (IOException e) {
+            throw new CannotReadWaveFileException(e);
+        }
+    }
+
+    @Override
+    public int getChannels() {
+        return wave.getChannels();
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return wave.getBytePerSample();
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return wave.getSampleFormat();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return wave.getSampleRate();
+    }
+
+    @Override
+    public long getTotalSamples() {
+        return wave.getTotalSamples();
+    }
+
+    @Override
+    public PrefetchingWave trim(double seconds) {
+        return slice(0, wave.getTotalSamplesForTime(seconds));
+    }
+
+    @Override
+    public PrefetchingWave slice(long startFrame, long endFrame) {
+        return new PrefetchingWave(wave.slice(startFrame, endFrame), blockSize, depth);
+    }
+
+    FileWave getFileWave() {
+        return wave;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchingWave{" +
+                "wave=" + wave +
+                ", blockSize=" + blockSize +
+                ", depth=" + depth +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package co.davidmontano.onda.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Last resort for readers that are never closed, as streams left unconsumed or iterators dropped halfway: once a
+// reader is unreachable its resources are closed the next time a reader is registered. Closing readers is still
+// what keeps file descriptors and pooled buffers bounded, the garbage collector decides when this one runs
+final class ReaderCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReaderCleaner.class);
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    // phantom references are only enqueued while they are reachable themselves
+    private static final Set<Cleanup> PENDING = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private ReaderCleaner() {
+    }
+
+    // The resource must not reference the owner, or the owner never becomes unreachable
+    static Cleanup register(Object owner, Closeable resource) {
+        expunge();
+        Cleanup cleanup = new Cleanup(owner, resource);
+        PENDING.add(cleanup);
+        return cleanup;
+    }
+
+    static void expunge() {
+        Reference<?> reference;
+        while ((reference = QUEUE.poll()) != null) {
+            try {
+                ((Cleanup) reference).clean();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Cannot release resources of a reader that was not closed", e);
+            }
+        }
+    }
+
+    static final class Cleanup extends PhantomReference<Object> {
+
+        private final Closeable resource;
+
+        private Cleanup(Object owner, Closeable resource) {
+            super(owner, QUEUE);
+            this.resource = resource;
+        }
+
+        // Closes the resource the first time only, whether called by its owner or after the owner was collected
+        void clean() throws IOException {
+            if (PENDING.remove(this)) {
+                clear();
+                resource.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package co.davidmontano.onda.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class SampleCursor implements Closeable {
+
+    private static final int BLOCK_FRAMES = 1024;
+
+    private final SamplesIterator samples;
+
+    private final int channels;
+
+    // decoded block, one array per channel. Reused for the whole wave
+    private final double[][] block;
+
+    private int blockFrames;
+
+    private int index;
+
+    private long position = -1;
+
+    public SampleCursor(Wave wave) {
+        this.samples = new SamplesIterator(wave);
+        this.channels = wave.getChannels();
+        this.block = new double[channels][BLOCK_FRAMES];
+    }
+
+    // Moves to the next frame. amplitude(channel) is only valid after advance() returned true
+    public boolean advance() {
+        if (index + 1 >= blockFrames) {
+            int framesRead = samples.readFrames(block, 0, BLOCK_FRAMES);
+            if (framesRead <= 0) {
+                index = blockFrames;
+                return false;
+            }
+            blockFrames = framesRead;
+            index = 0;
+        } else {
+            index++;
+        }
+        position++;
+        return true;
+    }
+
+    // Moves so the next advance() lands on the given sample. Constant time on seekable waves
+    public void seek(long sample) {
+        samples.seek(sample);
+        blockFrames = 0;
+        index = 0;
+        position = sample - 1;
+    }
+
+    public double amplitude(int channel) {
+        return block[channel][index];
+    }
+
+    // Copies the amplitudes of the current frame into dst, one per channel
+    public void amplitudes(double[] dst) {
+        for (int channel = 0; channel < channels; channel++) {
+            dst[channel] = block[channel][index];
+        }
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    @Override
+    public void close() throws IOException {
+        samples.close();
+    }
+}
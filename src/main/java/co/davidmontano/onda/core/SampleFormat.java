@@ -0,0 +1,226 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.BitrateNotSupportedException;
+import co.davidmontano.onda.core.exception.NotPCMAudioFormatException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Encoding of the samples, picked once per wave. Every format decodes little endian buffers to [-1, 1],
+// reading count samples that are stride bytes apart
+public enum SampleFormat implements Constants {
+
+    PCM_UNSIGNED_8(AUDIO_FORMAT_PCM, 8) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return ((src.get(index) & 0xFF) - 128) * (1.0 / 128);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = ((src.get(index) & 0xFF) - 128) * (1f / 128);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = ((src.get(index) & 0xFF) - 128) * (1.0 / 128);
+            }
+        }
+    },
+
+    PCM_SIGNED_16(AUDIO_FORMAT_PCM, 16) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return src.getShort(index) * (1.0 / 0x8000);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            SampleKernels kernels = kernels(src);
+            if (kernels != null && stride == 2) {
+                kernels.decode16(src.array(), src.arrayOffset() + index, dst, offset, count);
+                return;
+            }
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getShort(index) * (1f / 0x8000);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getShort(index) * (1.0 / 0x8000);
+            }
+        }
+
+        @Override
+        public void deinterleave(ByteBuffer src, int index, int channels, double[][] dst, int offset, int frames) {
+            SampleKernels kernels = kernels(src);
+            if (kernels == null
+                    || !kernels.deinterleave16(src.array(), src.arrayOffset() + index, channels, dst, offset, frames)) {
+                super.deinterleave(src, index, channels, dst, offset, frames);
+            }
+        }
+    },
+
+    PCM_SIGNED_24(AUDIO_FORMAT_PCM, 24) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return int24(src, index) * (1.0 / 0x800000);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = int24(src, index) * (1f / 0x800000);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = int24(src, index) * (1.0 / 0x800000);
+            }
+        }
+    },
+
+    PCM_SIGNED_32(AUDIO_FORMAT_PCM, 32) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return src.getInt(index) * (1.0 / 0x80000000L);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = (float) (src.getInt(index) * (1.0 / 0x80000000L));
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getInt(index) * (1.0 / 0x80000000L);
+            }
+        }
+    },
+
+    FLOAT_32(AUDIO_FORMAT_IEEE_FLOAT, 32) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return src.getFloat(index);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getFloat(index);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getFloat(index);
+            }
+        }
+    },
+
+    FLOAT_64(AUDIO_FORMAT_IEEE_FLOAT, 64) {
+        @Override
+        public double decode(ByteBuffer src, int index) {
+            return src.getDouble(index);
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = (float) src.getDouble(index);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count) {
+            for (int i = 0; i < count; i++, index += stride) {
+                dst[offset + i] = src.getDouble(index);
+            }
+        }
+    };
+
+    private final int audioFormat;
+
+    private final int bitsPerSample;
+
+    SampleFormat(int audioFormat, int bitsPerSample) {
+        this.audioFormat = audioFormat;
+        this.bitsPerSample = bitsPerSample;
+    }
+
+    // audioFormat as in the fmt subchunk, already resolved when it is WAVE_FORMAT_EXTENSIBLE
+    public static SampleFormat of(int audioFormat, int bitsPerSample) {
+        if (audioFormat != AUDIO_FORMAT_PCM && audioFormat != AUDIO_FORMAT_IEEE_FLOAT) {
+            throw new NotPCMAudioFormatException("Invalid audio format {" + audioFormat + "}");
+        }
+        for (SampleFormat format : values()) {
+            if (format.audioFormat == audioFormat && format.bitsPerSample == bitsPerSample) {
+                return format;
+            }
+        }
+        throw new BitrateNotSupportedException("Bitrate not supported: " + bitsPerSample
+                + (audioFormat == AUDIO_FORMAT_PCM ? ". Use either 8, 16, 24, 32" : ". Use either 32, 64"));
+    }
+
+    // the top byte is read signed, so it carries the sign
+    private static int int24(ByteBuffer src, int index) {
+        return ((src.get(index) & 0xFF) | (src.get(index + 1) & 0xFF) << 8 | src.get(index + 2) << 16);
+    }
+
+    // Vector kernels work on the array behind heap buffers
+    private static SampleKernels kernels(ByteBuffer src) {
+        return src.hasArray() && src.order() == ByteOrder.LITTLE_ENDIAN ? SampleKernels.VECTOR : null;
+    }
+
+    // Frames to one array per channel: one strided pass per channel
+    public void deinterleave(ByteBuffer src, int index, int channels, double[][] dst, int offset, int frames) {
+        int frameSize = getBytePerSample() * channels;
+        for (int channel = 0; channel < channels; channel++) {
+            decode(src, index + channel * getBytePerSample(), frameSize, dst[channel], offset, frames);
+        }
+    }
+
+    public abstract double decode(ByteBuffer src, int index);
+
+    public abstract void decode(ByteBuffer src, int index, int stride, float[] dst, int offset, int count);
+
+    public abstract void decode(ByteBuffer src, int index, int stride, double[] dst, int offset, int count);
+
+    public int getAudioFormat() {
+        return audioFormat;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    public int getBytePerSample() {
+        return bitsPerSample / 8;
+    }
+}
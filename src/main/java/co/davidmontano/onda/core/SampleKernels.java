@@ -0,0 +1,50 @@
+package co.davidmontano.onda.core;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Bulk kernels over little endian arrays that replace the scalar loops of SampleFormat when available.
+// The implementation lives in the Java 17 layer of the multi-release jar and uses the Vector API
+interface SampleKernels {
+
+    String IMPLEMENTATION = "co.davidmontano.onda.core.VectorSampleKernels";
+
+    // -Donda.vector=false keeps the scalar loops
+    String ENABLED_PROPERTY = "onda.vector";
+
+    // null on Java 8, or when jdk.incubator.vector was not added with --add-modules
+    SampleKernels VECTOR = load();
+
+    static SampleKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return null;
+        }
+        try {
+            SampleKernels kernels = (SampleKernels) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            LoggerFactory.getLogger(SampleKernels.class).debug("Sample kernels: {}", kernels);
+            return kernels;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // 16 bits samples to [-1, 1], count samples read one after the other
+    void decode16(byte[] src, int index, float[] dst, int offset, int count);
+
+    // 16 bits frames to one array per channel. Returns false, having done nothing, for unsupported channel counts
+    boolean deinterleave16(byte[] src, int index, int channels, double[][] dst, int offset, int frames);
+}
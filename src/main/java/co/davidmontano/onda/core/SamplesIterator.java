@@ -1,9 +1,12 @@
 package co.davidmontano.onda.core;
 
-import org.apache.commons.io.IOUtils;
-
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Iterator;
 
 /**
@@ -21,26 +24,57 @@ import java.util.Iterator;
  * See the License for the specific language governing permissions an
  * limitations under the License.
  */
-public class SamplesIterator implements Iterator<Sample> {
+public class SamplesIterator implements Iterator<Sample>, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
 
-    private final InputStream input;
+    private final ReadableByteChannel input;
     private final int bytePerSample;
     private final int channels;
+    private final int frameSize;
     private final long numSamples;
-    private final double maxPossibleAmplitude;
-    private int position;
+    private final SampleFormat format;
+    private final int bufferSize;
+    // pooled, the bytes are decoded from its array
+    private final ByteBuffer bufferView;
+    private final byte[] buffer;
+    private int bufferPosition;
+    private int bufferLimit;
+    private long position;
+    // frames decoded one by one by next(), reported with the next buffer fill
+    private long pendingFrames;
+    private boolean closed;
+    // releases the buffer and closes the channel, on close or once the iterator is collected without being closed
+    private final ReaderCleaner.Cleanup cleanup;
 
     public SamplesIterator(Wave wave) {
-        this.input = wave.data();
+        // seekable channels move in constant time, other channels can only skip forward
+        this.input = wave.dataChannel();
         this.channels = wave.getChannels();
         this.bytePerSample = wave.getBytePerSample();
+        this.frameSize = bytePerSample * channels;
         this.numSamples = wave.getTotalSamples();
-        this.maxPossibleAmplitude = Math.pow(2, 8 * this.bytePerSample) - 1;
+        this.format = wave.getSampleFormat();
+        this.bufferSize = Math.max(1, BUFFER_SIZE / frameSize) * frameSize;
+        this.bufferView = BufferPool.heap().acquire(bufferSize);
+        this.buffer = bufferView.array();
+        this.cleanup = ReaderCleaner.register(this, resources(input, bufferView));
+    }
+
+    private static Closeable resources(ReadableByteChannel input, ByteBuffer bufferView) {
+        return () -> {
+            try {
+                BufferPool.heap().release(bufferView);
+            } finally {
+                input.close();
+            }
+        };
     }
 
     @Override
     public boolean hasNext() {
-        return position < numSamples;
+        // without a known length the end is where the data ends
+        return numSamples == Wave.UNKNOWN_LENGTH ? bufferedFrames(1) > 0 : position < numSamples;
     }
 
     @Override
@@ -54,28 +88,107 @@ public class SamplesIterator implements Iterator<Sample> {
         }
     }
 
+    // Decodes up to frameCount frames into dst, channels interleaved. Returns the frames read or -1 at the end
+    public int readFrames(float[] dst, int offset, int frameCount) {
+        int framesRead = 0;
+        while (framesRead < frameCount) {
+            int frames = bufferedFrames(frameCount - framesRead);
+            if (frames == 0) {
+                break;
+            }
+            long start = WaveMetrics.now();
+            format.decode(bufferView, bufferPosition, bytePerSample, dst, offset + framesRead * channels, frames * channels);
+            WaveMetrics.notifyDecoded(frames, WaveMetrics.now() - start);
+            bufferPosition += frames * frameSize;
+            framesRead += frames;
+            position += frames;
+        }
+        return framesRead == 0 && frameCount > 0 ? -1 : framesRead;
+    }
+
+    // Decodes up to frameCount frames into one array per channel. Returns the frames read or -1 at the end
+    public int readFrames(double[][] perChannel, int offset, int frameCount) {
+        int framesRead = 0;
+        while (framesRead < frameCount) {
+            int frames = bufferedFrames(frameCount - framesRead);
+            if (frames == 0) {
+                break;
+            }
+            long start = WaveMetrics.now();
+            format.deinterleave(bufferView, bufferPosition, channels, perChannel, offset + framesRead, frames);
+            WaveMetrics.notifyDecoded(frames, WaveMetrics.now() - start);
+            bufferPosition += frames * frameSize;
+            framesRead += frames;
+            position += frames;
+        }
+        return framesRead == 0 && frameCount > 0 ? -1 : framesRead;
+    }
+
     private void sampleRead() {
         position++;
     }
 
     private Sample getNextSample() {
+        if (bufferedFrames(1) == 0) {
+            throw new IllegalStateException("Unexpected end of data. Position: " + position + " Samples: " + numSamples);
+        }
         double[] amplitudes = new double[channels];
         for (int i = 0; i < channels; i++) {
-            double amplitude = getNextAmplitude();
-            amplitudes[i] = amplitude / maxPossibleAmplitude;
+            amplitudes[i] = format.decode(bufferView, bufferPosition);
+            bufferPosition += bytePerSample;
         }
+        pendingFrames++;
         return new Sample(amplitudes);
     }
 
+    // Frames ready to decode in the buffer, refilling it when empty. Never more than wanted nor past the end
+    private int bufferedFrames(int wanted) {
+        ensureOpen();
+        long remaining = numSamples == Wave.UNKNOWN_LENGTH ? Long.MAX_VALUE : numSamples - position;
+        if (remaining <= 0) {
+            return 0;
+        }
+        if (bufferLimit - bufferPosition < frameSize) {
+            fillBuffer();
+        }
+        int frames = (bufferLimit - bufferPosition) / frameSize;
+        return (int) Math.min(Math.min(wanted, remaining), frames);
+    }
 
-    private long getNextAmplitude() {
-        long amplitude = 0;
-        for (int byteNumber = 0; byteNumber < bytePerSample; byteNumber++) {
-            // little endian
-            byte data = getNextByte(input);
-            amplitude |= (long)(data & 0xFF) << (byteNumber * 8);
+    // the buffer goes back to the pool on close, touching it afterwards would corrupt another reader
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Samples iterator is closed");
+        }
+    }
+
+    private void fillBuffer() {
+        reportPendingFrames();
+        int leftover = bufferLimit - bufferPosition;
+        System.arraycopy(buffer, bufferPosition, buffer, 0, leftover);
+        bufferPosition = 0;
+        bufferLimit = leftover;
+        long start = WaveMetrics.now();
+        try {
+            while (bufferLimit < frameSize) {
+                bufferView.limit(bufferSize).position(bufferLimit);
+                int read = input.read(bufferView);
+                if (read < 0) {
+                    break;
+                }
+                bufferLimit += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        WaveMetrics.notifyRead(bufferLimit - leftover, WaveMetrics.now() - start);
+    }
+
+    private void reportPendingFrames() {
+        if (pendingFrames > 0) {
+            WaveMetrics.notifyDecoded(pendingFrames, 0);
+            pendingFrames = 0;
         }
-        return amplitude;
     }
 
     public byte getNextByte(InputStream input) {
@@ -91,14 +204,66 @@ public class SamplesIterator implements Iterator<Sample> {
         throw new UnsupportedOperationException();
     }
 
-    public Sample moveToSample(int sample) {
+    public Sample moveToSample(long sample) {
+        seek(sample);
+        return next();
+    }
+
+    // Moves so the next sample read is the given one
+    public void seek(long sample) {
+        ensureOpen();
+        if (sample < 0 || numSamples != Wave.UNKNOWN_LENGTH && sample > numSamples) {
+            throw new IllegalArgumentException("Sample " + sample + " out of [0, " + numSamples + "]");
+        }
         try {
-            int diff = (sample - position);
-            IOUtils.skipFully(input, diff * bytePerSample * channels);
+            long skip = (sample - position) * frameSize;
+            int buffered = bufferLimit - bufferPosition;
+            if (skip >= 0 && skip <= buffered) {
+                bufferPosition += (int) skip;
+            } else if (input instanceof SeekableByteChannel) {
+                long start = WaveMetrics.now();
+                ((SeekableByteChannel) input).position(sample * frameSize);
+                bufferPosition = bufferLimit = 0;
+                WaveMetrics.notifySeek(0, WaveMetrics.now() - start);
+            } else if (skip > 0) {
+                long start = WaveMetrics.now();
+                skipFully(skip - buffered);
+                WaveMetrics.notifySeek(skip - buffered, WaveMetrics.now() - start);
+            } else {
+                throw new IllegalArgumentException("Cannot move backwards in a wave that is not seekable. Position: "
+                        + position + " Sample: " + sample);
+            }
             position = sample;
-            return next();
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
     }
+
+    private void skipFully(long bytes) throws IOException {
+        long skipped = 0;
+        while (skipped < bytes) {
+            bufferView.limit((int) Math.min(bufferSize, bytes - skipped)).position(0);
+            int read = input.read(bufferView);
+            if (read < 0) {
+                throw new EOFException("Bytes to skip: " + bytes + " actual: " + skipped);
+            }
+            skipped += read;
+        }
+        bufferPosition = bufferLimit = 0;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            reportPendingFrames();
+            // nothing buffered is left to decode, reads and seeks after close are rejected
+            bufferPosition = bufferLimit = 0;
+        }
+        cleanup.clean();
+    }
 }
@@ -0,0 +1,143 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Concatenation of seekable waves: positions map to a part and an offset inside it
+class SeekableConcatWave extends ConcatWave implements SeekableWave {
+
+    SeekableConcatWave(Wave[] parts) {
+        super(parts);
+    }
+
+    @Override
+    public SeekableByteChannel dataChannel() {
+        return new ConcatChannel();
+    }
+
+    @Override
+    public SeekableWave trim(double seconds) {
+        return (SeekableWave) super.trim(seconds);
+    }
+
+    @Override
+    public SeekableWave slice(long startFrame, long endFrame) {
+        return (SeekableWave) super.slice(startFrame, endFrame);
+    }
+
+    private class ConcatChannel implements SeekableByteChannel {
+
+        private final long size = getTotalSamples() * frameSize;
+
+        private long position = 0;
+
+        // channel of the last part read, kept open while reads stay in it
+        private int part = -1;
+
+        private SeekableByteChannel channel;
+
+        private boolean open = true;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= size) {
+                return -1;
+            }
+            int current = part(position / frameSize);
+            if (current != part) {
+                if (channel != null) {
+                    channel.close();
+                }
+                channel = ((SeekableWave) parts[current]).dataChannel();
+                part = current;
+            }
+            long partPosition = position - starts[part] * frameSize;
+            long partRemaining = (starts[part + 1] - starts[part]) * frameSize - partPosition;
+            int limit = dst.limit();
+            if (dst.remaining() > partRemaining) {
+                dst.limit(dst.position() + (int) partRemaining);
+            }
+            try {
+                channel.position(partPosition);
+                int read = channel.read(dst);
+                if (read < 0) {
+                    throw new IOException("Part ended before its last frame: " + parts[part]);
+                }
+                position += read;
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public ConcatChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position: " + newPosition);
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return size;
+        }
+
+        @Override
+        public ConcatChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
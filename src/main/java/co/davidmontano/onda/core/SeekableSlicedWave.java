@@ -0,0 +1,131 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Frames [startFrame, endFrame) of a seekable wave: reads start right at the slice
+class SeekableSlicedWave extends SlicedWave implements SeekableWave {
+
+    SeekableSlicedWave(SeekableWave source, long startFrame, long endFrame) {
+        super(source, startFrame, endFrame);
+    }
+
+    @Override
+    public SeekableByteChannel dataChannel() {
+        return new SliceChannel(((SeekableWave) source).dataChannel());
+    }
+
+    @Override
+    public SeekableWave trim(double seconds) {
+        return slice(0, (long) Math.min(getTotalSamples(), getSampleRate() * seconds));
+    }
+
+    @Override
+    public SeekableWave slice(long startFrame, long endFrame) {
+        checkRange(this, startFrame, endFrame);
+        return ((SeekableWave) source).slice(this.startFrame + startFrame, this.startFrame + endFrame);
+    }
+
+    private class SliceChannel implements SeekableByteChannel {
+
+        private final SeekableByteChannel channel;
+
+        private final long offset = startFrame * frameSize;
+
+        private final long size = (endFrame - startFrame) * frameSize;
+
+        private long position = 0;
+
+        private SliceChannel(SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= size) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > size - position) {
+                dst.limit(dst.position() + (int) (size - position));
+            }
+            try {
+                channel.position(offset + position);
+                int read = channel.read(dst);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public SliceChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position: " + newPosition);
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return size;
+        }
+
+        @Override
+        public SliceChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!channel.isOpen()) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
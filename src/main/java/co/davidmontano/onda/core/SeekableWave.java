@@ -0,0 +1,16 @@
+package co.davidmontano.onda.core;
+
+
+import java.nio.channels.SeekableByteChannel;
+
+public interface SeekableWave extends Wave {
+
+    // Channel over the data subchunk only: position 0 is the first byte of the first sample
+    @Override
+    SeekableByteChannel dataChannel();
+
+    @Override
+    default SeekableWave slice(long startFrame, long endFrame) {
+        return new SeekableSlicedWave(this, startFrame, endFrame);
+    }
+}
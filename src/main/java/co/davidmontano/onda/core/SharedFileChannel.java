@@ -0,0 +1,106 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.CannotReadWaveFileException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// One read only FileChannel for every reader of a file. The first acquire opens it and the last release
+// closes it. Readers only use positional reads, so they never move each other's position.
+//
+// A thread interrupted in the middle of a read closes a FileChannel for everyone: the other readers reopen
+// it instead of failing, the interrupted one gets its ClosedByInterruptException
+class SharedFileChannel {
+
+    private final String location;
+
+    private FileChannel channel;
+
+    private int references;
+
+    SharedFileChannel(String location) {
+        this.location = location;
+    }
+
+    synchronized FileChannel acquire() {
+        if (references == 0 || !channel.isOpen()) {
+            channel = open();
+        }
+        references++;
+        return channel;
+    }
+
+    synchronized void release() throws IOException {
+        if (references == 0) {
+            throw new IllegalStateException("Released more times than acquired: " + location);
+        }
+        if (--references == 0) {
+            FileChannel closed = channel;
+            channel = null;
+            closed.close();
+        }
+    }
+
+    int read(ByteBuffer dst, long position) throws IOException {
+        FileChannel current = current();
+        try {
+            return current.read(dst, position);
+        } catch (ClosedByInterruptException e) {
+            throw e;
+        } catch (ClosedChannelException e) {
+            return reopen(current).read(dst, position);
+        }
+    }
+
+    private synchronized FileChannel current() throws ClosedChannelException {
+        if (references == 0) {
+            throw new ClosedChannelException();
+        }
+        return channel;
+    }
+
+    // Opens the file again unless another reader already did, or every reader is gone
+    private synchronized FileChannel reopen(FileChannel closed) throws ClosedChannelException {
+        if (references == 0) {
+            throw new ClosedChannelException();
+        }
+        if (channel == closed) {
+            channel = open();
+        }
+        return channel;
+    }
+
+    private FileChannel open() {
+        try {
+            FileChannel opened = FileChannel.open(Paths.get(location), StandardOpenOption.READ);
+            WaveMetrics.notifyFileOpened(location);
+            return opened;
+        } catch (IOException e) {
+            throw new CannotReadWaveFileException(e);
+        }
+    }
+
+    synchronized int getReferences() {
+        return references;
+    }
+}
@@ -0,0 +1,167 @@
+package co.davidmontano.onda.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Frames [startFrame, endFrame) of a wave that cannot seek: the frames before the slice are read and dropped
+class SlicedWave implements Wave {
+
+    private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+    protected final Wave source;
+
+    protected final long startFrame;
+
+    protected final long endFrame;
+
+    protected final int frameSize;
+
+    SlicedWave(Wave source, long startFrame, long endFrame) {
+        checkRange(source, startFrame, endFrame);
+        this.source = source;
+        this.startFrame = startFrame;
+        this.endFrame = endFrame;
+        this.frameSize = source.getBytePerSample() * source.getChannels();
+    }
+
+    static void checkRange(Wave wave, long startFrame, long endFrame) {
+        // a wave of unknown length might end before the slice, which then reads less
+        if (startFrame < 0 || endFrame < startFrame || wave.isLengthKnown() && endFrame > wave.getTotalSamples()) {
+            throw new IndexOutOfBoundsException("Slice [" + startFrame + ", " + endFrame + ") out of [0, "
+                    + wave.getTotalSamples() + ")");
+        }
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    @Override
+    public ReadableByteChannel dataChannel() {
+        return new SliceChannel(source.dataChannel());
+    }
+
+    @Override
+    public int getChannels() {
+        return source.getChannels();
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return source.getBytePerSample();
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return source.getSampleFormat();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return source.getSampleRate();
+    }
+
+    @Override
+    public long getTotalSamples() {
+        return endFrame - startFrame;
+    }
+
+    @Override
+    public Wave trim(double seconds) {
+        return slice(0, (long) Math.min(getTotalSamples(), getSampleRate() * seconds));
+    }
+
+    // Slices of slices go straight to the source
+    @Override
+    public Wave slice(long startFrame, long endFrame) {
+        checkRange(this, startFrame, endFrame);
+        return source.slice(this.startFrame + startFrame, this.startFrame + endFrame);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "source=" + source +
+                ", startFrame=" + startFrame +
+                ", endFrame=" + endFrame +
+                '}';
+    }
+
+    private class SliceChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel channel;
+
+        private long toSkip = startFrame * frameSize;
+
+        private long remaining = (endFrame - startFrame) * frameSize;
+
+        private SliceChannel(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (toSkip > 0) {
+                skip();
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                int read = channel.read(dst);
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        private void skip() throws IOException {
+            ByteBuffer skipped = ByteBuffer.allocate((int) Math.min(SKIP_BUFFER_SIZE, toSkip));
+            while (toSkip > 0) {
+                skipped.clear().limit((int) Math.min(skipped.capacity(), toSkip));
+                int read = channel.read(skipped);
+                if (read < 0) {
+                    throw new EOFException("Wave ended " + toSkip + " bytes before the slice");
+                }
+                toSkip -= read;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.NotAudioException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class StreamingWave implements Wave, Constants {
+
+    // fmt is the only subchunk kept in memory, anything bigger is not a fmt header
+    private static final int MAX_FMT_SIZE = 1024;
+
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    // a data size of 0 or 0xFFFFFFFF is written by producers that do not know the length in advance
+    private static final long UNKNOWN_SIZE = 0xFFFFFFFFL;
+
+    private final ReadableByteChannel channel;
+
+    private final WaveHeader header;
+
+    private final long totalSamples;
+
+    // shared with trimmed views: the samples can only be read once
+    private final AtomicBoolean consumed;
+
+    public StreamingWave(InputStream input) throws IOException {
+        this(Channels.newChannel(input));
+    }
+
+    // Reads up to the beginning of the data subchunk, samples are read from there on
+    public StreamingWave(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        this.header = readHeader(channel);
+        this.consumed = new AtomicBoolean();
+        header.checkAcceptableWavProperties();
+
+        long dataSize = header.findSubchunk(DATA_HEADER_ID).getSubchunkSize();
+        this.totalSamples = dataSize == 0 || dataSize == UNKNOWN_SIZE ? UNKNOWN_LENGTH : dataSize / frameSize();
+    }
+
+    private StreamingWave(StreamingWave wave, long totalSamples) {
+        this.channel = wave.channel;
+        this.header = wave.header;
+        this.consumed = wave.consumed;
+        this.totalSamples = totalSamples;
+    }
+
+    // bytes of a frame as SamplesIterator decodes them, as in FileWave, whatever the block align says
+    private int frameSize() {
+        return getBytePerSample() * getChannels();
+    }
+
+    private static WaveHeader readHeader(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, 12);
+        ChunkReader.checkChunkAndFormat(buffer.getInt(0), buffer.getInt(8));
+
+        Set<Subchunk> subchunks = new HashSet<>();
+        byte[] fmt = null;
+        long offset = 12;
+        while (true) {
+            readFully(channel, buffer, 8);
+            offset += 8;
+            Subchunk subchunk = new Subchunk(buffer.getInt(0), offset, buffer.getInt(4) & 0xFFFFFFFFL);
+            subchunks.add(subchunk);
+            if (subchunk.isSubchunk(DATA_HEADER_ID)) {
+                if (fmt == null) {
+                    throw new NotAudioException("Header: data subchunk found before fmt subchunk");
+                }
+                return new WaveHeader(Collections.unmodifiableSet(subchunks), fmt);
+            }
+            long size = subchunk.getSubchunkSize() + subchunk.getSubchunkSize() % 2;
+            if (subchunk.isSubchunk(FMT_HEADER_ID)) {
+                if (size > MAX_FMT_SIZE) {
+                    throw new NotAudioException("Header: fmt subchunk too big: " + subchunk.getSubchunkSize());
+                }
+                ByteBuffer fmtBuffer = ByteBuffer.allocate((int) size);
+                readFully(channel, fmtBuffer, (int) size);
+                fmt = fmtBuffer.array();
+            } else {
+                skipFully(channel, size);
+            }
+            offset += size;
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Length to read: " + length + " actual: " + buffer.position());
+            }
+        }
+    }
+
+    private static void skipFully(ReadableByteChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SKIP_BUFFER_SIZE, length));
+        long skipped = 0;
+        while (skipped < length) {
+            int chunk = (int) Math.min(buffer.capacity(), length - skipped);
+            readFully(channel, buffer, chunk);
+            skipped += chunk;
+        }
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    // Can only be called once: the samples are not kept after being read
+    @Override
+    public ReadableByteChannel dataChannel() {
+        if (!consumed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Samples of a streaming wave can only be read once");
+        }
+        long size = isLengthKnown() ? totalSamples * frameSize() : Long.MAX_VALUE;
+        return new DataChannel(size);
+    }
+
+    @Override
+    public int getChannels() {
+        return header.getChannels();
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return header.getBitsPerSample() / 8;
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return header.getSampleFormat();
+    }
+
+    // UNKNOWN_LENGTH when the producer did not know the length, reading stops at the end of the stream
+    @Override
+    public long getTotalSamples() {
+        return totalSamples;
+    }
+
+    public int getAudioFormat() {
+        return header.getAudioFormat();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return (int) header.getSampleRate();
+    }
+
+    public int getBitsPerSample() {
+        return header.getBitsPerSample();
+    }
+
+    public WaveHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public StreamingWave trim(double seconds) {
+        long frames = (long) (header.getSampleRate() * seconds);
+        return new StreamingWave(this, isLengthKnown() ? Math.min(totalSamples, frames) : frames);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingWave{" +
+                "header=" + header +
+                ", totalSamples=" + totalSamples +
+                '}';
+    }
+
+    private class DataChannel implements ReadableByteChannel {
+
+        private long remaining;
+
+        private DataChannel(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                int read = channel.read(dst);
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
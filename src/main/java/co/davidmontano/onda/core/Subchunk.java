@@ -19,20 +19,43 @@ import java.io.InputStream;
  */
 public class Subchunk {
 
-    private final String subchunkId;
+    // four ASCII characters, first one in the lowest byte as stored in the file
+    private final int subchunkId;
 
     private final long offset;
 
     private final long subchunkSize;
 
     public Subchunk(String subchunkId, long offset, long subchunkSize) {
+        this(fourcc(subchunkId), offset, subchunkSize);
+    }
+
+    public Subchunk(int subchunkId, long offset, long subchunkSize) {
         this.subchunkId = subchunkId;
         this.offset = offset;
         this.subchunkSize = subchunkSize;
     }
 
+    // Ids shorter than four characters are padded with spaces, as in "fmt "
+    public static int fourcc(String id) {
+        int fourcc = 0;
+        for (int i = 0; i < 4; i++) {
+            int character = i < id.length() ? id.charAt(i) & 0xff : ' ';
+            fourcc |= character << (i * 8);
+        }
+        return fourcc;
+    }
+
+    public static String fourccToString(int fourcc) {
+        char[] id = new char[4];
+        for (int i = 0; i < 4; i++) {
+            id[i] = (char) ((fourcc >>> (i * 8)) & 0xff);
+        }
+        return new String(id);
+    }
+
     public String getSubchunkId() {
-        return subchunkId;
+        return fourccToString(subchunkId);
     }
 
     public long getOffset() {
@@ -44,7 +67,7 @@ public class Subchunk {
     }
 
     public boolean isSubchunk(String id) {
-        return subchunkId.equals(id);
+        return subchunkId == fourcc(id);
     }
 
     // IMPORTANT: InputStream must be at the beginning
@@ -54,10 +77,7 @@ public class Subchunk {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((subchunkId == null) ? 0 : subchunkId.hashCode());
-        return result;
+        return subchunkId;
     }
 
     @Override
@@ -69,17 +89,12 @@ public class Subchunk {
         if (getClass() != obj.getClass())
             return false;
         Subchunk other = (Subchunk) obj;
-        if (subchunkId == null) {
-            if (other.subchunkId != null)
-                return false;
-        } else if (!subchunkId.equals(other.subchunkId))
-            return false;
-        return true;
+        return subchunkId == other.subchunkId;
     }
 
     @Override
     public String toString() {
-        return "Subchunk [subchunkId=" + subchunkId + ", offset=" + offset + ", subchunkSize=" + subchunkSize + "]";
+        return "Subchunk [subchunkId=" + getSubchunkId() + ", offset=" + offset + ", subchunkSize=" + subchunkSize + "]";
     }
 
 }
@@ -0,0 +1,131 @@
+package co.davidmontano.onda.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class SubchunkChannel implements SeekableByteChannel {
+
+    private final Subchunk subchunk;
+
+    // exactly one of them: a channel of its own, or a reference to a shared one
+    private final FileChannel channel;
+
+    private final SharedFileChannel shared;
+
+    private long position = 0;
+
+    private boolean open = true;
+
+    // Reads are positional, the position of the FileChannel is never used
+    public SubchunkChannel(Subchunk subchunk, FileChannel channel) {
+        this.subchunk = subchunk;
+        this.channel = channel;
+        this.shared = null;
+    }
+
+    // Holds a reference to the shared channel until closed
+    SubchunkChannel(Subchunk subchunk, SharedFileChannel shared) {
+        this.subchunk = subchunk;
+        this.channel = null;
+        this.shared = shared;
+        shared.acquire();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        long remaining = subchunk.getSubchunkSize() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int limit = dst.limit();
+        if (dst.remaining() > remaining) {
+            dst.limit(dst.position() + (int) remaining);
+        }
+        try {
+            long filePosition = subchunk.getOffset() + position;
+            int read = shared != null ? shared.read(dst, filePosition) : channel.read(dst, filePosition);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SubchunkChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return subchunk.getSubchunkSize();
+    }
+
+    @Override
+    public SubchunkChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open && (shared != null || channel.isOpen());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (shared != null) {
+            shared.release();
+        } else {
+            channel.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -55,4 +55,42 @@ public class SubchunkInputStream extends InputStream {
         }
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = subchunk.getSubchunkSize() - bytesRead;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = input.read(b, off, (int) Math.min(len, remaining));
+        if (read > 0) {
+            bytesRead += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long remaining = subchunk.getSubchunkSize() - bytesRead;
+        if (n <= 0 || remaining <= 0) {
+            return 0;
+        }
+        long skipped = input.skip(Math.min(n, remaining));
+        bytesRead += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        long remaining = subchunk.getSubchunkSize() - bytesRead;
+        return (int) Math.min(input.available(), remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
 }
@@ -2,16 +2,61 @@ package co.davidmontano.onda.core;
 
 
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface Wave {
 
+    // total samples of a wave whose producer did not know how long it would be
+    long UNKNOWN_LENGTH = -1;
+
     InputStream data();
 
+    default ReadableByteChannel dataChannel() {
+        return Channels.newChannel(data());
+    }
+
     int getChannels();
 
     int getBytePerSample();
 
+    default SampleFormat getSampleFormat() {
+        return SampleFormat.of(Constants.AUDIO_FORMAT_PCM, getBytePerSample() * 8);
+    }
+
+    int getSampleRate();
+
+    // UNKNOWN_LENGTH when only reading the wave to its end tells
     long getTotalSamples();
 
+    default boolean isLengthKnown() {
+        return getTotalSamples() != UNKNOWN_LENGTH;
+    }
+
     Wave trim(double seconds);
+
+    // Lazy view over the frames in [startFrame, endFrame), nothing is read until its data is
+    default Wave slice(long startFrame, long endFrame) {
+        return new SlicedWave(this, startFrame, endFrame);
+    }
+
+    // Lazy view playing the waves one after the other. They must share channels, sample size and rate
+    static Wave concat(Wave... waves) {
+        return ConcatWave.of(waves);
+    }
+
+    // Readers are closed when the frames run out. Streams that may stop before, as with findFirst or limit,
+    // must be closed to release them: try (Stream<Sample> frames = wave.frames()) { ... }
+    default Stream<Sample> frames() {
+        FrameSpliterator spliterator = new FrameSpliterator(this);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    // As frames(), split in frame ranges read in parallel when the wave can seek
+    default Stream<Sample> parallelFrames() {
+        FrameSpliterator spliterator = new FrameSpliterator(this);
+        return StreamSupport.stream(spliterator, true).onClose(spliterator::close);
+    }
 }
@@ -0,0 +1,152 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.CannotReadWaveFileException;
+import co.davidmontano.onda.core.exception.SubchunkNotFoundException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class WaveHeader implements Constants {
+
+    private final Set<Subchunk> subchunks;
+    private final int audioFormat; // unsigned 2 bytes, little endian
+    private final int channels; // unsigned 2 bytes, little endian
+    private final long sampleRate; // unsigned 4 bytes, little endian
+    private final long byteRate; // unsigned 4 bytes, little endian
+    private final int blockAlign; // unsigned 2 bytes, little endian
+    private final int bitsPerSample; // unsigned 2 bytes, little endian
+    private final int subFormat; // audio format, or the one in the sub format GUID when extensible
+
+    public WaveHeader(Set<Subchunk> subchunks, byte[] headerBuffer) {
+        this.subchunks = subchunks;
+        int pointer = 0;
+        audioFormat = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
+        channels = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
+        sampleRate = (long) (headerBuffer[pointer++] & 0xff) | (long) (headerBuffer[pointer++] & 0xff) << 8 | (long) (headerBuffer[pointer++] & 0xff) << 16
+                | (long) (headerBuffer[pointer++] & 0xff) << 24;
+        byteRate = (long) (headerBuffer[pointer++] & 0xff) | (long) (headerBuffer[pointer++] & 0xff) << 8 | (long) (headerBuffer[pointer++] & 0xff) << 16
+                | (long) (headerBuffer[pointer++] & 0xff) << 24;
+        blockAlign = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
+        bitsPerSample = (int) ((headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8);
+        // cbSize, validBitsPerSample, channelMask and then the GUID
+        pointer += 8;
+        if (audioFormat == AUDIO_FORMAT_EXTENSIBLE && headerBuffer.length >= pointer + 2) {
+            subFormat = (headerBuffer[pointer++] & 0xff) | (headerBuffer[pointer++] & 0xff) << 8;
+        } else {
+            subFormat = audioFormat;
+        }
+    }
+
+    // the whole header is read with a single open
+    public static WaveHeader read(String location) throws IOException {
+        try (FileChannel channel = open(location)) {
+            Set<Subchunk> subchunks = new ChunkReader().read(channel);
+            Subchunk fmt = findSubchunk(subchunks, FMT_HEADER_ID);
+            return new WaveHeader(subchunks, readSubchunk(channel, fmt));
+        }
+    }
+
+    private static FileChannel open(String location) {
+        try {
+            FileChannel opened = FileChannel.open(Paths.get(location), StandardOpenOption.READ);
+            WaveMetrics.notifyFileOpened(location);
+            return opened;
+        } catch (IOException e) {
+            throw new CannotReadWaveFileException(e);
+        }
+    }
+
+    private static byte[] readSubchunk(FileChannel channel, Subchunk subchunk) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) subchunk.getSubchunkSize());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, subchunk.getOffset() + buffer.position()) < 0) {
+                throw new EOFException("Subchunk " + subchunk);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static Subchunk findSubchunk(Set<Subchunk> subchunks, String subchunkId) {
+        for (Subchunk subchunk : subchunks) {
+            if (subchunk.isSubchunk(subchunkId)) {
+                return subchunk;
+            }
+        }
+        throw new SubchunkNotFoundException(subchunkId);
+    }
+
+    void checkAcceptableWavProperties() {
+        getSampleFormat();
+    }
+
+    // Throws NotPCMAudioFormatException or BitrateNotSupportedException for formats without a decoder
+    public SampleFormat getSampleFormat() {
+        return SampleFormat.of(subFormat, bitsPerSample);
+    }
+
+    public Subchunk findSubchunk(String subchunkId) {
+        return findSubchunk(subchunks, subchunkId);
+    }
+
+    public Set<Subchunk> getSubchunks() {
+        return subchunks;
+    }
+
+    public int getAudioFormat() {
+        return audioFormat;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public long getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getByteRate() {
+        return byteRate;
+    }
+
+    public int getBlockAlign() {
+        return blockAlign;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    @Override
+    public String toString() {
+        return "WaveHeader{" +
+                "audioFormat=" + audioFormat +
+                ", subFormat=" + subFormat +
+                ", channels=" + channels +
+                ", sampleRate=" + sampleRate +
+                ", byteRate=" + byteRate +
+                ", blockAlign=" + blockAlign +
+                ", bitsPerSample=" + bitsPerSample +
+                ", subchunks=" + subchunks +
+                '}';
+    }
+}
@@ -0,0 +1,159 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.CannotReadWaveFileException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class WaveHeaderCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final WaveHeaderCache DEFAULT = new WaveHeaderCache(DEFAULT_CAPACITY);
+
+    // access ordered: the eldest entry is the least recently used. Guarded by itself
+    private final Map<Path, CachedHeader> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public WaveHeaderCache(final int capacity) {
+        this.entries = new LinkedHashMap<Path, CachedHeader>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -2400925424410593166L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedHeader> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Shared by every FileWave built without an explicit cache
+    public static WaveHeaderCache getDefault() {
+        return DEFAULT;
+    }
+
+    // A known file costs one stat: the cached header is used while its size and modification time are unchanged
+    public WaveHeader get(String location) throws IOException {
+        Path path = Paths.get(location).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = attributes(path);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        CachedHeader entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+        }
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            hits.increment();
+            return entry.header;
+        }
+
+        misses.increment();
+        // parsed outside the lock, concurrent misses of the same file parse it twice
+        WaveHeader header = WaveHeader.read(location);
+        synchronized (entries) {
+            entries.put(path, new CachedHeader(size, lastModified, header));
+        }
+        return header;
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new CannotReadWaveFileException(e);
+        }
+    }
+
+    public void invalidate(String location) {
+        Path path = Paths.get(location).toAbsolutePath().normalize();
+        synchronized (entries) {
+            entries.remove(path);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long requests = hits + getMisses();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "WaveHeaderCache{" +
+                "size=" + size() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+
+    private static class CachedHeader {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final WaveHeader header;
+
+        private CachedHeader(long size, long lastModified, WaveHeader header) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.header = header;
+        }
+    }
+}
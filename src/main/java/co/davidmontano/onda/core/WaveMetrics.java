@@ -0,0 +1,238 @@
+package co.davidmontano.onda.core;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Counters of the io and decoding of every wave. The default instance is registered from the start; counting
+// is a striped add, so it can stay on. Removing every listener also stops the timing
+public class WaveMetrics implements WaveMetricsListener, WaveMetricsMXBean {
+
+    public static final String OBJECT_NAME = "co.davidmontano.onda:type=WaveMetrics";
+
+    private static final WaveMetrics DEFAULT = new WaveMetrics();
+
+    // copied on write, read on every notification
+    private static volatile WaveMetricsListener[] listeners = {DEFAULT};
+
+    private final LongAdder filesOpened = new LongAdder();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder seeks = new LongAdder();
+
+    private final LongAdder bytesSkipped = new LongAdder();
+
+    private final LongAdder framesDecoded = new LongAdder();
+
+    private final LongAdder ioNanos = new LongAdder();
+
+    private final LongAdder decodeNanos = new LongAdder();
+
+    private final LongAdder stalls = new LongAdder();
+
+    private final LongAdder stallNanos = new LongAdder();
+
+    public static WaveMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    public static synchronized void addListener(WaveMetricsListener listener) {
+        WaveMetricsListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    public static synchronized void removeListener(WaveMetricsListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                WaveMetricsListener[] removed = new WaveMetricsListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed;
+                return;
+            }
+        }
+    }
+
+    // Registers the default metrics in the platform MBean server under OBJECT_NAME
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(DEFAULT, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void unregisterMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // nanoTime only when someone listens
+    static long now() {
+        return listeners.length > 0 ? System.nanoTime() : 0;
+    }
+
+    static void notifyFileOpened(String location) {
+        for (WaveMetricsListener listener : listeners) {
+            listener.fileOpened(location);
+        }
+    }
+
+    static void notifyRead(long bytes, long nanos) {
+        for (WaveMetricsListener listener : listeners) {
+            listener.read(bytes, nanos);
+        }
+    }
+
+    static void notifySeek(long bytesSkipped, long nanos) {
+        for (WaveMetricsListener listener : listeners) {
+            listener.seek(bytesSkipped, nanos);
+        }
+    }
+
+    static void notifyDecoded(long frames, long nanos) {
+        for (WaveMetricsListener listener : listeners) {
+            listener.decoded(frames, nanos);
+        }
+    }
+
+    static void notifyStalled(long nanos) {
+        for (WaveMetricsListener listener : listeners) {
+            listener.stalled(nanos);
+        }
+    }
+
+    @Override
+    public void fileOpened(String location) {
+        filesOpened.increment();
+    }
+
+    @Override
+    public void read(long bytes, long nanos) {
+        bytesRead.add(bytes);
+        ioNanos.add(nanos);
+    }
+
+    @Override
+    public void seek(long bytesSkipped, long nanos) {
+        seeks.increment();
+        this.bytesSkipped.add(bytesSkipped);
+        ioNanos.add(nanos);
+    }
+
+    @Override
+    public void decoded(long frames, long nanos) {
+        framesDecoded.add(frames);
+        decodeNanos.add(nanos);
+    }
+
+    @Override
+    public void stalled(long nanos) {
+        stalls.increment();
+        stallNanos.add(nanos);
+    }
+
+    @Override
+    public long getFilesOpened() {
+        return filesOpened.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getSeeks() {
+        return seeks.sum();
+    }
+
+    @Override
+    public long getBytesSkipped() {
+        return bytesSkipped.sum();
+    }
+
+    @Override
+    public long getFramesDecoded() {
+        return framesDecoded.sum();
+    }
+
+    @Override
+    public long getIoNanos() {
+        return ioNanos.sum();
+    }
+
+    @Override
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    @Override
+    public long getStalls() {
+        return stalls.sum();
+    }
+
+    @Override
+    public long getStallNanos() {
+        return stallNanos.sum();
+    }
+
+    @Override
+    public void reset() {
+        filesOpened.reset();
+        bytesRead.reset();
+        seeks.reset();
+        bytesSkipped.reset();
+        framesDecoded.reset();
+        ioNanos.reset();
+        decodeNanos.reset();
+        stalls.reset();
+        stallNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "WaveMetrics{" +
+                "filesOpened=" + getFilesOpened() +
+                ", bytesRead=" + getBytesRead() +
+                ", seeks=" + getSeeks() +
+                ", bytesSkipped=" + getBytesSkipped() +
+                ", framesDecoded=" + getFramesDecoded() +
+                ", ioNanos=" + getIoNanos() +
+                ", decodeNanos=" + getDecodeNanos() +
+                ", stalls=" + getStalls() +
+                ", stallNanos=" + getStallNanos() +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package co.davidmontano.onda.core;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Notified of the io and decoding done by FileWave and SamplesIterator, from whatever thread does it.
+// Calls are made once per buffer of 64KB, not per frame, and must not block
+public interface WaveMetricsListener {
+
+    default void fileOpened(String location) {
+    }
+
+    default void read(long bytes, long nanos) {
+    }
+
+    // bytesSkipped is 0 when the channel moved without reading
+    default void seek(long bytesSkipped, long nanos) {
+    }
+
+    default void decoded(long frames, long nanos) {
+    }
+
+    // a reader waited for a block it had asked for ahead of time
+    default void stalled(long nanos) {
+    }
+}
@@ -0,0 +1,403 @@
+package co.davidmontano.onda.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+public class WaveWriter implements Closeable, Constants {
+
+    // RIFF, fmt and data headers of PCM files with up to 2 channels
+    private static final int HEADER_SIZE = 44;
+
+    // WAVE_FORMAT_EXTENSIBLE fmt, with 24 more bytes, then a fact subchunk
+    private static final int EXTENSIBLE_HEADER_SIZE = HEADER_SIZE + 24 + 12;
+
+    // KSDATAFORMAT_SUBTYPE_PCM and _IEEE_FLOAT but for the audio format in the first 2 bytes
+    private static final byte[] SUBTYPE_GUID_TAIL = {0, 0, 0, 0, 0x10, 0, (byte) 0x80, 0, 0, (byte) 0xAA, 0, 0x38,
+            (byte) 0x9B, 0x71};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // a whole number of samples of any width
+    private static final int BUFFER_BYTES = BUFFER_SIZE / 24 * 24;
+
+    private final FileChannel channel;
+
+    private final int channels;
+
+    private final SampleFormat format;
+
+    private final int bytePerSample;
+
+    private final int frameSize;
+
+    private final ByteBuffer header;
+
+    private final int headerSize;
+
+    // RIFF sizes are unsigned 4 bytes, the RIFF one counts the header and the pad byte of odd data sizes
+    private final long maxDataSize;
+
+    // encoded samples waiting to be written
+    private final ByteBuffer buffer;
+
+    private boolean headerWritten;
+
+    private long framesWritten;
+
+    private boolean closed;
+
+    public WaveWriter(String location, int channels, int sampleRate, int bitsPerSample) throws IOException {
+        this(location, channels, sampleRate, SampleFormat.of(AUDIO_FORMAT_PCM, bitsPerSample));
+    }
+
+    public WaveWriter(String location, int channels, int sampleRate, SampleFormat format) throws IOException {
+        this.channels = channels;
+        this.format = format;
+        this.bytePerSample = format.getBytePerSample();
+        this.frameSize = bytePerSample * channels;
+        this.header = header(channels, sampleRate, format);
+        this.headerSize = header.remaining();
+        this.maxDataSize = (0xFFFFFFFFL - (headerSize - 8)) & ~1L;
+        this.channel = FileChannel.open(Paths.get(location), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = BufferPool.direct().acquire(BUFFER_BYTES);
+    }
+
+    // Sizes are written on close. Floats and more than 2 channels need the extensible fmt, with the speakers
+    // of the channels, and a fact subchunk with the number of frames
+    private static ByteBuffer header(int channels, int sampleRate, SampleFormat format) {
+        boolean extensible = format.getAudioFormat() != AUDIO_FORMAT_PCM || channels > 2;
+        int blockAlign = format.getBytePerSample() * channels;
+        ByteBuffer header = ByteBuffer.allocateDirect(extensible ? EXTENSIBLE_HEADER_SIZE : HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Subchunk.fourcc(RIFF_HEADER)).putInt(0).putInt(Subchunk.fourcc(WAVE_HEADER));
+        header.putInt(Subchunk.fourcc(FMT_HEADER_ID)).putInt(extensible ? 40 : 16)
+                .putShort((short) (extensible ? AUDIO_FORMAT_EXTENSIBLE : format.getAudioFormat()))
+                .putShort((short) channels)
+                .putInt(sampleRate)
+                .putInt(sampleRate * blockAlign)
+                .putShort((short) blockAlign)
+                .putShort((short) format.getBitsPerSample());
+        if (extensible) {
+            // cbSize, valid bits, then the first channels speakers in the standard order
+            header.putShort((short) 22).putShort((short) format.getBitsPerSample())
+                    .putInt(channels <= 18 ? (1 << channels) - 1 : 0)
+                    .putShort((short) format.getAudioFormat()).put(SUBTYPE_GUID_TAIL);
+            header.putInt(Subchunk.fourcc(FACT_HEADER_ID)).putInt(4).putInt(0);
+        }
+        header.putInt(Subchunk.fourcc(DATA_HEADER_ID)).putInt(0);
+        header.flip();
+        return header;
+    }
+
+    public static void export(Wave wave, String location) throws IOException {
+        export(wave, location, wave.getSampleFormat());
+    }
+
+    public static void export(Wave wave, String location, int bitsPerSample) throws IOException {
+        export(wave, location, SampleFormat.of(AUDIO_FORMAT_PCM, bitsPerSample));
+    }
+
+    // Copies the samples without decoding them when the format does not change, file to file when the wave is
+    // a whole file; otherwise decodes and encodes them again
+    public static void export(Wave wave, String location, SampleFormat format) throws IOException {
+        FileWave source = null;
+        if (wave instanceof FileWave) {
+            source = (FileWave) wave;
+        } else if (wave instanceof MappedWave) {
+            source = ((MappedWave) wave).getFileWave();
+        } else if (wave instanceof PrefetchingWave) {
+            source = ((PrefetchingWave) wave).getFileWave();
+        }
+        try (WaveWriter writer = new WaveWriter(location, wave.getChannels(), wave.getSampleRate(), format)) {
+            if (source != null && source.getSampleFormat() == format) {
+                writer.transfer(source);
+            } else if (wave.getSampleFormat() == format) {
+                writer.copy(wave);
+            } else {
+                writer.write(wave);
+            }
+        }
+    }
+
+    // Kernel side copy of the samples of the wave, which must have the same format
+    public void transfer(FileWave source) throws IOException {
+        ensureOpen();
+        if (source.getChannels() != channels || source.getSampleFormat() != format) {
+            throw new IllegalArgumentException("Format does not match: " + source);
+        }
+        flush();
+        long position = source.getDataSubchunk().getOffset();
+        long size = source.getTotalSamples() * frameSize;
+        checkDataSize(framesWritten * frameSize + size);
+        // the file descriptor of the readers of the source, if any
+        FileChannel input = source.getFile().acquire();
+        try {
+            long transferred = 0;
+            while (transferred < size) {
+                long count = input.transferTo(position + transferred, size - transferred, channel);
+                if (count <= 0) {
+                    throw new IOException("Source ended after " + transferred + " of " + size + " bytes: " + source);
+                }
+                transferred += count;
+            }
+        } finally {
+            source.getFile().release();
+        }
+        framesWritten += source.getTotalSamples();
+    }
+
+    // The encoded bytes of a wave of the same format, whole frames at a time
+    private void copy(Wave wave) throws IOException {
+        ByteBuffer block = BufferPool.direct().acquire(Math.max(1, BUFFER_SIZE / frameSize) * frameSize);
+        try (ReadableByteChannel data = wave.dataChannel()) {
+            boolean ended = false;
+            while (!ended) {
+                ended = data.read(block) < 0;
+                if (ended || !block.hasRemaining()) {
+                    block.flip();
+                    int limit = block.limit();
+                    block.limit(limit - limit % frameSize);
+                    write(block);
+                    block.limit(limit);
+                    block.compact();
+                }
+            }
+        } finally {
+            BufferPool.direct().release(block);
+        }
+    }
+
+    public void write(Wave wave) throws IOException {
+        float[] block = new float[BUFFER_SIZE / 4 * channels];
+        int blockFrames = block.length / channels;
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            int frames;
+            while ((frames = samples.readFrames(block, 0, blockFrames)) > 0) {
+                write(block, 0, frames);
+            }
+        }
+    }
+
+    // Interleaved amplitudes in [-1, 1], out of range values are clipped unless written as floats. Scaled by the
+    // same full scale SampleFormat decodes with, so decoded samples are encoded back to the same values
+    public void write(float[] samples, int offset, int frames) throws IOException {
+        ensureOpen();
+        checkDataSize((framesWritten + frames) * frameSize);
+        int index = offset;
+        int remaining = frames * channels;
+        while (remaining > 0) {
+            if (buffer.remaining() < bytePerSample) {
+                flush();
+            }
+            int count = Math.min(remaining, buffer.remaining() / bytePerSample);
+            int end = index + count;
+            switch (format) {
+                case PCM_UNSIGNED_8:
+                    for (int i = index; i < end; i++) {
+                        buffer.put((byte) (Math.min(Math.round(clip(samples[i]) * 128), Byte.MAX_VALUE) + 128));
+                    }
+                    break;
+                case PCM_SIGNED_16:
+                    for (int i = index; i < end; i++) {
+                        buffer.putShort((short) Math.min(Math.round(clip(samples[i]) * 0x8000), Short.MAX_VALUE));
+                    }
+                    break;
+                case PCM_SIGNED_24:
+                    for (int i = index; i < end; i++) {
+                        putInt24(Math.min(Math.round(clip(samples[i]) * 0x800000), 0x7FFFFF));
+                    }
+                    break;
+                case PCM_SIGNED_32:
+                    for (int i = index; i < end; i++) {
+                        buffer.putInt((int) Math.min(Math.round(clip(samples[i]) * (double) 0x80000000L), Integer.MAX_VALUE));
+                    }
+                    break;
+                case FLOAT_32:
+                    buffer.asFloatBuffer().put(samples, index, count);
+                    buffer.position(buffer.position() + count * 4);
+                    break;
+                default:
+                    for (int i = index; i < end; i++) {
+                        buffer.putDouble(samples[i]);
+                    }
+            }
+            index += count;
+            remaining -= count;
+        }
+        framesWritten += frames;
+    }
+
+    // Interleaved 16 bits samples, converted when the file has another format
+    public void write(short[] samples, int offset, int frames) throws IOException {
+        ensureOpen();
+        checkDataSize((framesWritten + frames) * frameSize);
+        int index = offset;
+        int remaining = frames * channels;
+        while (remaining > 0) {
+            if (buffer.remaining() < bytePerSample) {
+                flush();
+            }
+            int count = Math.min(remaining, buffer.remaining() / bytePerSample);
+            int end = index + count;
+            switch (format) {
+                case PCM_UNSIGNED_8:
+                    for (int i = index; i < end; i++) {
+                        buffer.put((byte) ((samples[i] >> 8) + 128));
+                    }
+                    break;
+                case PCM_SIGNED_16:
+                    buffer.asShortBuffer().put(samples, index, count);
+                    buffer.position(buffer.position() + count * 2);
+                    break;
+                case PCM_SIGNED_24:
+                    for (int i = index; i < end; i++) {
+                        putInt24(samples[i] << 8);
+                    }
+                    break;
+                case PCM_SIGNED_32:
+                    for (int i = index; i < end; i++) {
+                        buffer.putInt(samples[i] << 16);
+                    }
+                    break;
+                case FLOAT_32:
+                    for (int i = index; i < end; i++) {
+                        buffer.putFloat(samples[i] * (1f / 0x8000));
+                    }
+                    break;
+                default:
+                    for (int i = index; i < end; i++) {
+                        buffer.putDouble(samples[i] * (1.0 / 0x8000));
+                    }
+            }
+            index += count;
+            remaining -= count;
+        }
+        framesWritten += frames;
+    }
+
+    // Frames already encoded in the format of the file, written with a single gathering write
+    public void write(ByteBuffer... frames) throws IOException {
+        ensureOpen();
+        long bytes = 0;
+        for (ByteBuffer block : frames) {
+            bytes += block.remaining();
+        }
+        if (bytes % frameSize != 0) {
+            throw new IllegalArgumentException("Not a whole number of frames: " + bytes + " bytes");
+        }
+        checkDataSize(framesWritten * frameSize + bytes);
+        flush();
+        writeFully(frames);
+        framesWritten += bytes / frameSize;
+    }
+
+    private void putInt24(int sample) {
+        buffer.put((byte) sample).put((byte) (sample >> 8)).put((byte) (sample >> 16));
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    private static float clip(float sample) {
+        return Math.max(-1f, Math.min(1f, sample));
+    }
+
+    private void checkDataSize(long dataSize) {
+        if (dataSize > maxDataSize) {
+            throw new IllegalStateException("Wave files cannot hold more than " + maxDataSize + " bytes of samples");
+        }
+    }
+
+    // The header goes out with the first samples
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear().limit(BUFFER_BYTES);
+    }
+
+    private void writeFully(ByteBuffer... buffers) throws IOException {
+        if (!headerWritten) {
+            ByteBuffer[] withHeader = new ByteBuffer[buffers.length + 1];
+            withHeader[0] = header;
+            System.arraycopy(buffers, 0, withHeader, 1, buffers.length);
+            buffers = withHeader;
+            headerWritten = true;
+        }
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    // the buffer is back in the pool once closed
+    private void ensureOpen() throws ClosedChannelException {
+        if (closed || !channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    // Writes the sizes and releases the buffer, even when the channel was already closed by an interrupt.
+    // Closing again does nothing
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            long dataSize = framesWritten * frameSize;
+            checkDataSize(dataSize);
+            // subchunks are word aligned
+            if (dataSize % 2 != 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), headerSize + dataSize);
+            }
+            // below 2^32, the int holds the unsigned value
+            ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            size.putInt(0, (int) (headerSize - 8 + dataSize + dataSize % 2));
+            channel.write(size, 4);
+            size.clear();
+            size.putInt(0, (int) dataSize);
+            channel.write(size, headerSize - 4);
+            if (headerSize == EXTENSIBLE_HEADER_SIZE) {
+                // frames in the fact subchunk, right before the data header
+                size.clear();
+                size.putInt(0, (int) framesWritten);
+                channel.write(size, headerSize - 12);
+            }
+        } finally {
+            try {
+                channel.close();
+            } finally {
+                BufferPool.direct().release(buffer);
+            }
+        }
+    }
+}
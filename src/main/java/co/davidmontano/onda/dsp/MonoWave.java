@@ -0,0 +1,82 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Average of every channel of the source
+public class MonoWave extends ProcessedWave {
+
+    public MonoWave(Wave source) {
+        super(source);
+    }
+
+    @Override
+    protected FrameSource open() {
+        SamplesIterator samples = new SamplesIterator(source);
+        int channels = source.getChannels();
+        return new FrameSource() {
+
+            private float[] interleaved = new float[0];
+
+            @Override
+            public int read(float[] dst, int maxFrames) {
+                if (interleaved.length < maxFrames * channels) {
+                    interleaved = new float[maxFrames * channels];
+                }
+                int frames = samples.readFrames(interleaved, 0, maxFrames);
+                for (int frame = 0, index = 0; frame < frames; frame++) {
+                    float sum = 0;
+                    for (int channel = 0; channel < channels; channel++) {
+                        sum += interleaved[index++];
+                    }
+                    dst[frame] = sum / channels;
+                }
+                return frames;
+            }
+
+            @Override
+            public void close() throws IOException {
+                samples.close();
+            }
+        };
+    }
+
+    @Override
+    public int getChannels() {
+        return 1;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return source.getSampleRate();
+    }
+
+    @Override
+    public long getTotalSamples() {
+        return source.getTotalSamples();
+    }
+
+    @Override
+    public String toString() {
+        return "MonoWave{" +
+                "source=" + source +
+                '}';
+    }
+}
@@ -0,0 +1,132 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.SampleFormat;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Wave computed from another one block by block, exposed as 32 bits float samples. Nothing is computed
+// until its data is read, and every read starts over from the source
+public abstract class ProcessedWave implements Wave {
+
+    protected final Wave source;
+
+    protected ProcessedWave(Wave source) {
+        this.source = source;
+    }
+
+    // A new pass over the source, closed with the data channel
+    protected abstract FrameSource open();
+
+    protected interface FrameSource {
+
+        // Up to maxFrames interleaved frames into dst. Returns the frames written or -1 at the end
+        int read(float[] dst, int maxFrames);
+
+        void close() throws IOException;
+    }
+
+    @Override
+    public InputStream data() {
+        return Channels.newInputStream(dataChannel());
+    }
+
+    @Override
+    public ReadableByteChannel dataChannel() {
+        return new FramesChannel(open());
+    }
+
+    @Override
+    public SampleFormat getSampleFormat() {
+        return SampleFormat.FLOAT_32;
+    }
+
+    @Override
+    public int getBytePerSample() {
+        return 4;
+    }
+
+    @Override
+    public Wave trim(double seconds) {
+        long frames = (long) (getSampleRate() * seconds);
+        return slice(0, isLengthKnown() ? Math.min(getTotalSamples(), frames) : frames);
+    }
+
+    private class FramesChannel implements ReadableByteChannel {
+
+        private static final int BLOCK_FRAMES = 1024;
+
+        private final FrameSource frames;
+
+        private final float[] block = new float[BLOCK_FRAMES * getChannels()];
+
+        private final ByteBuffer encoded = ByteBuffer.allocate(block.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+
+        private boolean open = true;
+
+        private boolean ended;
+
+        private FramesChannel(FrameSource frames) {
+            this.frames = frames;
+            encoded.limit(0);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (!encoded.hasRemaining()) {
+                if (ended) {
+                    return -1;
+                }
+                int read = frames.read(block, BLOCK_FRAMES);
+                if (read <= 0) {
+                    ended = true;
+                    return -1;
+                }
+                encoded.clear();
+                encoded.asFloatBuffer().put(block, 0, read * getChannels());
+                encoded.limit(read * getChannels() * 4);
+            }
+            int count = Math.min(dst.remaining(), encoded.remaining());
+            ByteBuffer chunk = encoded.duplicate();
+            chunk.limit(chunk.position() + count);
+            dst.put(chunk);
+            encoded.position(encoded.position() + count);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            frames.close();
+        }
+    }
+}
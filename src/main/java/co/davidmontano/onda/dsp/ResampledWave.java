@@ -0,0 +1,218 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Source at another sample rate, by a ratio up / down reduced from the two rates. Conceptually the source is
+// upsampled by up, low pass filtered and decimated by down; the polyphase bank only computes the kept outputs,
+// each one with taps multiplications per channel. Memory depends on the ratio, not on the length of the source
+public class ResampledWave extends ProcessedWave {
+
+    // zero crossings of the sinc on each side of the center
+    private static final int ZERO_CROSSINGS = 16;
+
+    // cutoff as a fraction of the lower Nyquist frequency
+    private static final double ROLLOFF = 0.95;
+
+    private static final int READ_FRAMES = 4096;
+
+    private final int sampleRate;
+
+    private final int up;
+
+    private final int down;
+
+    private final int taps;
+
+    // phases[p][k] applies to input frame base - taps + 1 + k of the outputs at phase p
+    private final float[][] phases;
+
+    // filter delay, in upsampled samples
+    private final long delay;
+
+    public ResampledWave(Wave source, int sampleRate) {
+        super(source);
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        int gcd = gcd(source.getSampleRate(), sampleRate);
+        this.sampleRate = sampleRate;
+        this.up = sampleRate / gcd;
+        this.down = source.getSampleRate() / gcd;
+        if (up == 1 && down == 1) {
+            this.taps = 1;
+            this.phases = new float[][]{{1}};
+            this.delay = 0;
+        } else {
+            int widest = Math.max(up, down);
+            this.taps = (int) Math.ceil(2 * ZERO_CROSSINGS * widest / (ROLLOFF * up));
+            this.phases = design(up, taps, ROLLOFF * 0.5 / widest);
+            this.delay = (taps * up - 1) / 2;
+        }
+    }
+
+    // Windowed sinc of taps * up coefficients centered on the delay, split in up phases
+    private static float[][] design(int up, int taps, double cutoff) {
+        int length = taps * up;
+        int center = (length - 1) / 2;
+        float[][] phases = new float[up][taps];
+        for (int j = 0; j < length; j++) {
+            double x = 2 * cutoff * (j - center);
+            double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+            double blackman = 0.42 - 0.5 * Math.cos(2 * Math.PI * j / (length - 1))
+                    + 0.08 * Math.cos(4 * Math.PI * j / (length - 1));
+            // up compensates the zeros inserted when upsampling
+            phases[j % up][taps - 1 - j / up] = (float) (up * 2 * cutoff * sinc * blackman);
+        }
+        return phases;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    @Override
+    protected FrameSource open() {
+        return new PolyphaseFilter();
+    }
+
+    @Override
+    public int getChannels() {
+        return source.getChannels();
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    // ceil(source frames * up / down), unknown when the source length is
+    @Override
+    public long getTotalSamples() {
+        if (!source.isLengthKnown()) {
+            return UNKNOWN_LENGTH;
+        }
+        long frames = source.getTotalSamples();
+        return frames / down * up + ((frames % down) * up + down - 1) / down;
+    }
+
+    public int getUp() {
+        return up;
+    }
+
+    public int getDown() {
+        return down;
+    }
+
+    public int getTaps() {
+        return taps;
+    }
+
+    @Override
+    public String toString() {
+        return "ResampledWave{" +
+                "source=" + source +
+                ", sampleRate=" + sampleRate +
+                ", up=" + up +
+                ", down=" + down +
+                ", taps=" + taps +
+                '}';
+    }
+
+    private class PolyphaseFilter implements FrameSource {
+
+        private final SamplesIterator samples = new SamplesIterator(source);
+
+        private final int channels = source.getChannels();
+
+        // input frames from historyStart on, interleaved. Frames before the source are zeros
+        private final float[] history = new float[(taps + READ_FRAMES) * channels];
+
+        private long historyStart = -(taps - 1);
+
+        private int historyFrames = taps - 1;
+
+        private long inputFrames;
+
+        private boolean ended;
+
+        // outputs once the source ended
+        private long limit = Long.MAX_VALUE;
+
+        private long next;
+
+        @Override
+        public int read(float[] dst, int maxFrames) {
+            int produced = 0;
+            while (produced < maxFrames) {
+                long time = next * down + delay;
+                long base = time / up;
+                float[] coefficients = phases[(int) (time % up)];
+                fill(base);
+                if (next >= limit) {
+                    break;
+                }
+                int first = (int) (base - (taps - 1) - historyStart) * channels;
+                for (int channel = 0; channel < channels; channel++) {
+                    float sum = 0;
+                    for (int k = 0, index = first + channel; k < taps; k++, index += channels) {
+                        sum += coefficients[k] * history[index];
+                    }
+                    dst[produced * channels + channel] = sum;
+                }
+                produced++;
+                next++;
+            }
+            return produced == 0 && maxFrames > 0 ? -1 : produced;
+        }
+
+        // Makes the history hold the taps frames ending at base, zeros past the end of the source
+        private void fill(long base) {
+            while (historyStart + historyFrames <= base) {
+                int drop = (int) Math.max(0, Math.min(historyFrames, base - (taps - 1) - historyStart));
+                if (drop > 0) {
+                    System.arraycopy(history, drop * channels, history, 0, (historyFrames - drop) * channels);
+                    historyStart += drop;
+                    historyFrames -= drop;
+                }
+                int room = history.length / channels - historyFrames;
+                int read = ended ? -1 : samples.readFrames(history, historyFrames * channels, room);
+                if (read > 0) {
+                    inputFrames += read;
+                } else {
+                    if (!ended) {
+                        ended = true;
+                        limit = inputFrames / down * up + ((inputFrames % down) * up + down - 1) / down;
+                    }
+                    int zeros = (int) Math.min(room, base + 1 - historyStart - historyFrames);
+                    Arrays.fill(history, historyFrames * channels, (historyFrames + zeros) * channels, 0);
+                    read = zeros;
+                }
+                historyFrames += read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            samples.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package co.davidmontano.onda.dsp;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Magnitudes of every STFT frame, bins from 0 Hz up to half the sample rate
+public class Spectrogram {
+
+    private final float[][] magnitudes;
+
+    private final int fftSize;
+
+    private final int hop;
+
+    private final int sampleRate;
+
+    Spectrogram(float[][] magnitudes, int fftSize, int hop, int sampleRate) {
+        this.magnitudes = magnitudes;
+        this.fftSize = fftSize;
+        this.hop = hop;
+        this.sampleRate = sampleRate;
+    }
+
+    public float getMagnitude(int frame, int bin) {
+        return magnitudes[frame][bin];
+    }
+
+    public float[] getMagnitudes(int frame) {
+        return magnitudes[frame];
+    }
+
+    public int getFrames() {
+        return magnitudes.length;
+    }
+
+    public int getBins() {
+        return fftSize / 2 + 1;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getHop() {
+        return hop;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public double getFrequency(int bin) {
+        return (double) bin * sampleRate / fftSize;
+    }
+
+    // start of the frame, in seconds
+    public double getTime(int frame) {
+        return (double) frame * hop / sampleRate;
+    }
+}
@@ -0,0 +1,216 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.Wave;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Short-time Fourier transform read in blocks from a wave. Frame k starts at sample k * hop, the last frames are
+// padded with zeros. The frames of a block are transformed in parallel and handed over in order
+public class Stft {
+
+    // channel meaning the average of every channel
+    public static final int MIX = -1;
+
+    // frames transformed together, bounds the memory of the stream
+    private static final int BLOCK_FRAMES = 256;
+
+    // below this many frames a block is transformed by a single task
+    private static final int MIN_FRAMES_PER_TASK = 16;
+
+    private final int fftSize;
+
+    private final int hop;
+
+    private final double[] window;
+
+    // amplitude of a full scale sine lands on 1
+    private final double scale;
+
+    private final ForkJoinPool pool;
+
+    // real and imaginary parts of the transform, one per thread. Twiddles are precomputed by commons-math
+    private final ThreadLocal<double[][]> scratch;
+
+    public Stft(int fftSize, int hop, Window window) {
+        this(fftSize, hop, window, ForkJoinPool.commonPool());
+    }
+
+    public Stft(int fftSize, int hop, Window window, ForkJoinPool pool) {
+        if (fftSize < 2 || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + fftSize);
+        }
+        if (hop <= 0 || hop > fftSize) {
+            throw new IllegalArgumentException("Hop must be in [1, " + fftSize + "]: " + hop);
+        }
+        this.fftSize = fftSize;
+        this.hop = hop;
+        this.window = window.coefficients(fftSize);
+        double sum = 0;
+        for (double coefficient : this.window) {
+            sum += coefficient;
+        }
+        this.scale = 2 / sum;
+        this.pool = pool;
+        this.scratch = ThreadLocal.withInitial(() -> new double[2][fftSize]);
+    }
+
+    public Spectrogram spectrogram(Wave wave) {
+        return spectrogram(wave, MIX);
+    }
+
+    public Spectrogram spectrogram(Wave wave, int channel) {
+        List<float[]> frames = new ArrayList<>();
+        process(wave, channel, (frame, magnitudes) -> frames.add(magnitudes.clone()));
+        return new Spectrogram(frames.toArray(new float[frames.size()][]), fftSize, hop, wave.getSampleRate());
+    }
+
+    // Memory does not depend on the length of the wave
+    public void process(Wave wave, int channel, SpectrumConsumer consumer) {
+        int channels = wave.getChannels();
+        if (channel != MIX && (channel < 0 || channel >= channels)) {
+            throw new IllegalArgumentException("No channel " + channel + " in " + wave);
+        }
+        float[] signal = new float[(BLOCK_FRAMES - 1) * hop + fftSize];
+        float[] interleaved = new float[Math.max(hop, 1024) * channels];
+        float[][] magnitudes = new float[BLOCK_FRAMES][fftSize / 2 + 1];
+        int filled = 0;
+        long samplesRead = 0;
+        long frame = 0;
+        boolean ended = false;
+
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            while (true) {
+                while (filled < signal.length && !ended) {
+                    int wanted = Math.min(signal.length - filled, interleaved.length / channels);
+                    int read = samples.readFrames(interleaved, 0, wanted);
+                    if (read <= 0) {
+                        ended = true;
+                    } else {
+                        select(interleaved, read, channels, channel, signal, filled);
+                        filled += read;
+                        samplesRead += read;
+                    }
+                }
+                // a full signal holds every sample of the block, at the end frames run up to the last sample read
+                int frames = ended ? (int) Math.min(BLOCK_FRAMES, (samplesRead + hop - 1) / hop - frame) : BLOCK_FRAMES;
+                if (frames <= 0) {
+                    return;
+                }
+                pool.invoke(new TransformTask(signal, filled, magnitudes, 0, frames));
+                for (int index = 0; index < frames; index++) {
+                    consumer.accept(frame + index, magnitudes[index]);
+                }
+                frame += frames;
+                int consumed = Math.min(filled, frames * hop);
+                System.arraycopy(signal, consumed, signal, 0, filled - consumed);
+                filled -= consumed;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void select(float[] interleaved, int frames, int channels, int channel, float[] dst, int offset) {
+        if (channel != MIX) {
+            for (int frame = 0, index = channel; frame < frames; frame++, index += channels) {
+                dst[offset + frame] = interleaved[index];
+            }
+            return;
+        }
+        for (int frame = 0, index = 0; frame < frames; frame++) {
+            float sum = 0;
+            for (int c = 0; c < channels; c++) {
+                sum += interleaved[index++];
+            }
+            dst[offset + frame] = sum / channels;
+        }
+    }
+
+    // |X(k)| of the windowed frame starting at signal[start]. Samples past filled are zeros
+    private void transform(float[] signal, int filled, int start, float[] magnitudes) {
+        double[][] data = scratch.get();
+        double[] real = data[0];
+        double[] imaginary = data[1];
+        int available = Math.max(0, Math.min(fftSize, filled - start));
+        for (int i = 0; i < available; i++) {
+            real[i] = signal[start + i] * window[i];
+        }
+        Arrays.fill(real, available, fftSize, 0);
+        Arrays.fill(imaginary, 0);
+        FastFourierTransformer.transformInPlace(data, DftNormalization.STANDARD, TransformType.FORWARD);
+        int bins = fftSize / 2 + 1;
+        for (int bin = 0; bin < bins; bin++) {
+            double magnitude = Math.sqrt(real[bin] * real[bin] + imaginary[bin] * imaginary[bin]) * scale;
+            // DC and Nyquist have no mirrored bin
+            magnitudes[bin] = (float) (bin == 0 || bin == bins - 1 ? magnitude / 2 : magnitude);
+        }
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getHop() {
+        return hop;
+    }
+
+    private class TransformTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -6085104425385315917L;
+
+        private final float[] signal;
+
+        private final int filled;
+
+        private final float[][] magnitudes;
+
+        private final int fromFrame;
+
+        private final int toFrame;
+
+        private TransformTask(float[] signal, int filled, float[][] magnitudes, int fromFrame, int toFrame) {
+            this.signal = signal;
+            this.filled = filled;
+            this.magnitudes = magnitudes;
+            this.fromFrame = fromFrame;
+            this.toFrame = toFrame;
+        }
+
+        @Override
+        protected void compute() {
+            if (toFrame - fromFrame > MIN_FRAMES_PER_TASK) {
+                int middle = (fromFrame + toFrame) >>> 1;
+                invokeAll(new TransformTask(signal, filled, magnitudes, fromFrame, middle),
+                        new TransformTask(signal, filled, magnitudes, middle, toFrame));
+            } else {
+                for (int frame = fromFrame; frame < toFrame; frame++) {
+                    transform(signal, filled, frame * hop, magnitudes[frame]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package co.davidmontano.onda.dsp;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Periodic analysis windows, as used for overlapping short-time transforms
+public enum Window {
+
+    RECTANGULAR {
+        @Override
+        double coefficient(int index, int size) {
+            return 1;
+        }
+    },
+
+    HANN {
+        @Override
+        double coefficient(int index, int size) {
+            return 0.5 - 0.5 * Math.cos(2 * Math.PI * index / size);
+        }
+    },
+
+    HAMMING {
+        @Override
+        double coefficient(int index, int size) {
+            return 0.54 - 0.46 * Math.cos(2 * Math.PI * index / size);
+        }
+    },
+
+    BLACKMAN {
+        @Override
+        double coefficient(int index, int size) {
+            return 0.42 - 0.5 * Math.cos(2 * Math.PI * index / size) + 0.08 * Math.cos(4 * Math.PI * index / size);
+        }
+    };
+
+    abstract double coefficient(int index, int size);
+
+    public double[] coefficients(int size) {
+        double[] coefficients = new double[size];
+        for (int index = 0; index < size; index++) {
+            coefficients[index] = coefficient(index, size);
+        }
+        return coefficients;
+    }
+}
@@ -0,0 +1,26 @@
+package co.davidmontano.onda.examples;
+
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.dsp.Stft;
+import co.davidmontano.onda.dsp.Window;
+import co.davidmontano.onda.image.DrawSpectrogram;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+
+public class DrawSpectrogramPngExample {
+
+    // Usage: DrawSpectrogramPngExample <wav file> <output png> [width] [height] [fft size] [hop]
+    public static void main(String[] args) throws IOException {
+        FileWave wave = new FileWave(args[0]);
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 512;
+        int fftSize = args.length > 4 ? Integer.parseInt(args[4]) : 2048;
+        int hop = args.length > 5 ? Integer.parseInt(args[5]) : fftSize / 4;
+
+        Stft stft = new Stft(fftSize, hop, Window.HANN);
+        ImageIO.write(new DrawSpectrogram(stft.spectrogram(wave)).draw(width, height), "png", new File(args[1]));
+    }
+}
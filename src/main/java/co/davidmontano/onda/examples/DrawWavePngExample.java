@@ -1,9 +1,25 @@
 package co.davidmontano.onda.examples;
 
 
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.image.DrawWave;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
 public class DrawWavePngExample {
 
-    public static void main(String[] args){
+    // Usage: DrawWavePngExample <wav file> <output prefix> [width] [height]
+    public static void main(String[] args) throws IOException {
+        FileWave wave = new FileWave(args[0]);
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 256;
 
+        BufferedImage[] images = new DrawWave(wave).draw(width, height);
+        for (int channel = 0; channel < images.length; channel++) {
+            ImageIO.write(images[channel], "png", new File(args[1] + "_" + channel + ".png"));
+        }
     }
 }
@@ -0,0 +1,89 @@
+package co.davidmontano.onda.image;
+
+import co.davidmontano.onda.dsp.Spectrogram;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Time on x, frequency on y with 0 Hz at the bottom, magnitude in decibels as color
+public class DrawSpectrogram {
+
+    public static final double DEFAULT_RANGE_DB = 90;
+
+    // black, blue, magenta, orange, yellow, white from quiet to loud
+    private static final int[] PALETTE = {0x000000, 0x1B0C5E, 0x8A1C7C, 0xE8573F, 0xFBD54A, 0xFFFFFF};
+
+    private final Spectrogram spectrogram;
+
+    private final double rangeDb;
+
+    public DrawSpectrogram(Spectrogram spectrogram) {
+        this(spectrogram, DEFAULT_RANGE_DB);
+    }
+
+    // magnitudes below -rangeDb dBFS are drawn black
+    public DrawSpectrogram(Spectrogram spectrogram, double rangeDb) {
+        this.spectrogram = spectrogram;
+        this.rangeDb = rangeDb;
+    }
+
+    // Each pixel takes the loudest frame and bin it covers
+    public BufferedImage draw(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int frames = spectrogram.getFrames();
+        int bins = spectrogram.getBins();
+        if (frames == 0) {
+            return image;
+        }
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int fromBin = (int) ((long) (height - 1 - y) * bins / height);
+            int toBin = Math.max(fromBin + 1, (int) ((long) (height - y) * bins / height));
+            for (int x = 0; x < width; x++) {
+                int fromFrame = (int) ((long) x * frames / width);
+                int toFrame = Math.max(fromFrame + 1, (int) ((long) (x + 1) * frames / width));
+                float max = 0;
+                for (int frame = fromFrame; frame < toFrame; frame++) {
+                    float[] magnitudes = spectrogram.getMagnitudes(frame);
+                    for (int bin = fromBin; bin < toBin; bin++) {
+                        max = Math.max(max, magnitudes[bin]);
+                    }
+                }
+                row[x] = color(max);
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    private int color(float magnitude) {
+        double db = 20 * Math.log10(Math.max(magnitude, 1e-12));
+        double level = Math.max(0, Math.min(1, (db + rangeDb) / rangeDb)) * (PALETTE.length - 1);
+        int index = Math.min((int) level, PALETTE.length - 2);
+        return blend(PALETTE[index], PALETTE[index + 1], level - index);
+    }
+
+    private static int blend(int from, int to, double ratio) {
+        int color = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int a = (from >> shift) & 0xFF;
+            int b = (to >> shift) & 0xFF;
+            color |= (int) Math.round(a + (b - a) * ratio) << shift;
+        }
+        return color;
+    }
+}
@@ -1,52 +1,159 @@
 package co.davidmontano.onda.image;
 
-import co.davidmontano.onda.core.Sample;
-import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.SampleCursor;
+import co.davidmontano.onda.core.SeekableWave;
 import co.davidmontano.onda.core.Wave;
-import org.apache.commons.math3.stat.StatUtils;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class DrawWave {
 
-    private static final int DEFAULT_SAMPLE_PER_POINT = 200;
+    // below this many frames a range is read by a single task
+    private static final long MIN_FRAMES_PER_TASK = 1 << 18;
+
+    private static final Color PEAK_COLOR = new Color(0x3A, 0x6E, 0xA5);
+
+    private static final Color RMS_COLOR = new Color(0x8F, 0xB8, 0xDE);
 
     private final Wave wave;
 
+    private final ForkJoinPool pool;
+
     public DrawWave(Wave wave) {
+        this(wave, ForkJoinPool.commonPool());
+    }
+
+    public DrawWave(Wave wave, ForkJoinPool pool) {
         this.wave = wave;
+        this.pool = pool;
     }
 
     public BufferedImage[] draw(int width, int height) {
-        SamplesIterator samples = new SamplesIterator(wave);
+        return render(peaks(width), width, height);
+    }
+
+    // Renders [fromFrame, toFrame) without touching the wave data
+    public static BufferedImage[] draw(PeakPyramid pyramid, long fromFrame, long toFrame, int width, int height) {
+        return render(pyramid.peaks(fromFrame, toFrame, width), width, height);
+    }
 
-        int samplePerPoint = DEFAULT_SAMPLE_PER_POINT;
-        if (wave.getTotalSamples() < width * samplePerPoint) {
-            samplePerPoint = 1;
+    // min/max/RMS of every channel for at most width columns, reading each frame once.
+    // Waves shorter than width get one column per frame
+    public WavePeaks peaks(int width) {
+        if (!wave.isLengthKnown()) {
+            throw new IllegalArgumentException("Cannot split a wave of unknown length in columns: " + wave);
+        }
+        int columns = (int) Math.min(width, wave.getTotalSamples());
+        WavePeaks peaks = new WavePeaks(wave.getChannels(), columns);
+        if (columns > 0) {
+            pool.invoke(new PeaksTask(peaks, 0, columns));
         }
+        return peaks;
+    }
 
-        float blocksOffset = wave.getTotalSamples() / (width * samplePerPoint);
+    public static BufferedImage[] render(WavePeaks peaks, int width, int height) {
+        BufferedImage[] images = new BufferedImage[peaks.getChannels()];
+        for (int channel = 0; channel < peaks.getChannels(); channel++) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            if (peaks.getWidth() > 0) {
+                Graphics2D graphics = image.createGraphics();
+                for (int x = 0; x < width; x++) {
+                    int column = (int) ((long) x * peaks.getWidth() / width);
+                    int top = toY(peaks.getMax(channel, column), height);
+                    int bottom = toY(peaks.getMin(channel, column), height);
+                    graphics.setColor(PEAK_COLOR);
+                    graphics.drawLine(x, top, x, bottom);
+                    if (peaks.hasRms()) {
+                        float rms = peaks.getRms(channel, column);
+                        graphics.setColor(RMS_COLOR);
+                        graphics.drawLine(x, Math.max(top, toY(rms, height)), x, Math.min(bottom, toY(-rms, height)));
+                    }
+                }
+                graphics.dispose();
+            }
+            images[channel] = image;
+        }
+        return images;
+    }
 
-        int currentAmplitude = 0;
-        double[][] amplitudesPerPoint = new double[wave.getChannels()][samplePerPoint];
+    // amplitudes in [-1, 1], 1 on top
+    private static int toY(double amplitude, int height) {
+        double clamped = Math.max(-1, Math.min(1, amplitude));
+        return (int) Math.round((1 - clamped) * (height - 1) / 2);
+    }
+
+    private class PeaksTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 5270926811385574436L;
+
+        private final WavePeaks peaks;
 
-        for (float i = 0; i < wave.getTotalSamples(); i += blocksOffset) {
-            int amplitudePos = (int) Math.floor(i);
-            Sample sample = samples.moveToSample(amplitudePos);
-            for (int channel = 0; channel < wave.getChannels(); channel++) {
-                amplitudesPerPoint[channel][currentAmplitude] = sample.getAmplitude(channel);
+        private final int fromColumn;
+
+        private final int toColumn;
+
+        private PeaksTask(WavePeaks peaks, int fromColumn, int toColumn) {
+            this.peaks = peaks;
+            this.fromColumn = fromColumn;
+            this.toColumn = toColumn;
+        }
+
+        @Override
+        protected void compute() {
+            long frames = firstFrame(toColumn) - firstFrame(fromColumn);
+            // only seekable waves can be read from several places at once
+            if (wave instanceof SeekableWave && frames > MIN_FRAMES_PER_TASK && toColumn - fromColumn > 1) {
+                int middle = (fromColumn + toColumn) >>> 1;
+                invokeAll(new PeaksTask(peaks, fromColumn, middle), new PeaksTask(peaks, middle, toColumn));
+            } else {
+                computeDirectly();
             }
-            if (currentAmplitude >= samplePerPoint) {
-                for (int channel = 0; channel < wave.getChannels(); channel++) {
-                    double median = StatUtils.percentile(amplitudesPerPoint[channel], 50);
-                    System.out.println(Math.round(median * height));
+        }
+
+        private void computeDirectly() {
+            int channels = wave.getChannels();
+            float[] min = new float[channels];
+            float[] max = new float[channels];
+            double[] sumOfSquares = new double[channels];
+
+            try (SampleCursor cursor = new SampleCursor(wave)) {
+                cursor.seek(firstFrame(fromColumn));
+                for (int column = fromColumn; column < toColumn; column++) {
+                    long frames = firstFrame(column + 1) - firstFrame(column);
+                    for (int channel = 0; channel < channels; channel++) {
+                        min[channel] = Float.MAX_VALUE;
+                        max[channel] = -Float.MAX_VALUE;
+                        sumOfSquares[channel] = 0;
+                    }
+                    long frame = 0;
+                    for (; frame < frames && cursor.advance(); frame++) {
+                        for (int channel = 0; channel < channels; channel++) {
+                            double amplitude = cursor.amplitude(channel);
+                            min[channel] = Math.min(min[channel], (float) amplitude);
+                            max[channel] = Math.max(max[channel], (float) amplitude);
+                            sumOfSquares[channel] += amplitude * amplitude;
+                        }
+                    }
+                    if (frame == 0) {
+                        // data ended before the expected total
+                        break;
+                    }
+                    for (int channel = 0; channel < channels; channel++) {
+                        peaks.set(channel, column, min[channel], max[channel], (float) Math.sqrt(sumOfSquares[channel] / frame));
+                    }
                 }
-                currentAmplitude = 0;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
             }
-            currentAmplitude++;
         }
 
-        return null;
-
+        private long firstFrame(int column) {
+            return column * wave.getTotalSamples() / peaks.getWidth();
+        }
     }
 }
@@ -0,0 +1,269 @@
+package co.davidmontano.onda.image;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.SampleCursor;
+import co.davidmontano.onda.core.Wave;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// Per-channel min/max of blocks of frames. Level 0 blocks hold baseFrames frames and every next level
+// merges two blocks of the previous one, up to a single block for the whole wave.
+//
+// Sidecar layout, little endian:
+// magic, version, channels, baseFrames (int) | totalFrames, sourceSize, sourceModified (long) | levels (int) |
+// blocks per level (long)...
+// then for every level, block and channel: min, max (float)
+public class PeakPyramid {
+
+    public static final int DEFAULT_BASE_FRAMES = 256;
+
+    public static final String SIDECAR_EXTENSION = ".peaks";
+
+    private static final int MAGIC = 0x50444E4F; // "ONDP"
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 4 * 4 + 3 * 8 + 4;
+
+    private final ByteBuffer buffer;
+
+    private final int channels;
+
+    private final int baseFrames;
+
+    private final long totalFrames;
+
+    // size and modification time in millis of the wav file it was built from, 0 when built from any other wave
+    private final long sourceSize;
+
+    private final long sourceModified;
+
+    private final long[] blocks;
+
+    private final int[] levelOffsets;
+
+    private PeakPyramid(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a peak pyramid, or unsupported version");
+        }
+        this.channels = buffer.getInt(8);
+        this.baseFrames = buffer.getInt(12);
+        this.totalFrames = buffer.getLong(16);
+        this.sourceSize = buffer.getLong(24);
+        this.sourceModified = buffer.getLong(32);
+        int levels = buffer.getInt(40);
+        this.blocks = new long[levels];
+        this.levelOffsets = new int[levels];
+        int offset = HEADER_SIZE + levels * 8;
+        for (int level = 0; level < levels; level++) {
+            blocks[level] = buffer.getLong(HEADER_SIZE + level * 8);
+            levelOffsets[level] = offset;
+            offset += blocks[level] * blockSize(channels);
+        }
+        if (offset > buffer.limit()) {
+            throw new IllegalArgumentException("Truncated peak pyramid");
+        }
+    }
+
+    public static PeakPyramid build(Wave wave) {
+        return build(wave, DEFAULT_BASE_FRAMES);
+    }
+
+    // Reads the wave once: level 0 comes from the samples, every other level from the previous one
+    public static PeakPyramid build(Wave wave, int baseFrames) {
+        return build(wave, baseFrames, 0, 0);
+    }
+
+    private static PeakPyramid build(Wave wave, int baseFrames, long sourceSize, long sourceModified) {
+        if (!wave.isLengthKnown()) {
+            throw new IllegalArgumentException("Cannot size the pyramid of a wave of unknown length: " + wave);
+        }
+        int channels = wave.getChannels();
+        long totalFrames = wave.getTotalSamples();
+
+        int levels = 1;
+        long levelBlocks = (totalFrames + baseFrames - 1) / baseFrames;
+        long size = levelBlocks;
+        while (levelBlocks > 1) {
+            levelBlocks = (levelBlocks + 1) / 2;
+            size += levelBlocks;
+            levels++;
+        }
+        long bytes = HEADER_SIZE + levels * 8L + size * blockSize(channels);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pyramid too big (" + bytes + " bytes), use more base frames");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(channels).putInt(baseFrames).putLong(totalFrames)
+                .putLong(sourceSize).putLong(sourceModified).putInt(levels);
+        levelBlocks = (totalFrames + baseFrames - 1) / baseFrames;
+        for (int level = 0; level < levels; level++) {
+            buffer.putLong(levelBlocks);
+            levelBlocks = (levelBlocks + 1) / 2;
+        }
+
+        readBaseLevel(wave, baseFrames, buffer);
+        levelBlocks = (totalFrames + baseFrames - 1) / baseFrames;
+        int previous = HEADER_SIZE + levels * 8;
+        for (int level = 1; level < levels; level++) {
+            for (long block = 0; block < levelBlocks; block += 2) {
+                for (int channel = 0; channel < channels; channel++) {
+                    int first = (int) (previous + block * blockSize(channels) + channel * 8);
+                    float min = buffer.getFloat(first);
+                    float max = buffer.getFloat(first + 4);
+                    if (block + 1 < levelBlocks) {
+                        int second = first + blockSize(channels);
+                        min = Math.min(min, buffer.getFloat(second));
+                        max = Math.max(max, buffer.getFloat(second + 4));
+                    }
+                    buffer.putFloat(min).putFloat(max);
+                }
+            }
+            previous += levelBlocks * blockSize(channels);
+            levelBlocks = (levelBlocks + 1) / 2;
+        }
+
+        buffer.flip();
+        return new PeakPyramid(buffer);
+    }
+
+    private static void readBaseLevel(Wave wave, int baseFrames, ByteBuffer buffer) {
+        int channels = wave.getChannels();
+        float[] min = new float[channels];
+        float[] max = new float[channels];
+        try (SampleCursor cursor = new SampleCursor(wave)) {
+            for (long first = 0; first < wave.getTotalSamples(); first += baseFrames) {
+                for (int channel = 0; channel < channels; channel++) {
+                    min[channel] = Float.MAX_VALUE;
+                    max[channel] = -Float.MAX_VALUE;
+                }
+                for (int frame = 0; frame < baseFrames && cursor.advance(); frame++) {
+                    for (int channel = 0; channel < channels; channel++) {
+                        float amplitude = (float) cursor.amplitude(channel);
+                        min[channel] = Math.min(min[channel], amplitude);
+                        max[channel] = Math.max(max[channel], amplitude);
+                    }
+                }
+                for (int channel = 0; channel < channels; channel++) {
+                    // blocks past a truncated data subchunk are silent
+                    buffer.putFloat(min[channel] > max[channel] ? 0 : min[channel]);
+                    buffer.putFloat(min[channel] > max[channel] ? 0 : max[channel]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static PeakPyramid map(Path sidecar) throws IOException {
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            return new PeakPyramid(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Maps the sidecar of the wav file, building and writing it first when missing, from an older version, or
+    // built from a file of another size or modification time, as WaveHeaderCache checks its headers
+    public static PeakPyramid forFile(String location) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(Paths.get(location), BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Path sidecar = Paths.get(location + SIDECAR_EXTENSION);
+        if (Files.exists(sidecar)) {
+            try {
+                PeakPyramid pyramid = map(sidecar);
+                if (pyramid.sourceSize == size && pyramid.sourceModified == lastModified) {
+                    return pyramid;
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                // truncated or older version, built again
+            }
+        }
+        build(new FileWave(location), DEFAULT_BASE_FRAMES, size, lastModified).write(sidecar);
+        return map(sidecar);
+    }
+
+    public void write(Path sidecar) throws IOException {
+        // written aside and moved, so readers never map a partial file
+        Path temporary = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer content = buffer.duplicate();
+            content.position(0);
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+        Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public WavePeaks peaks(int width) {
+        return peaks(0, totalFrames, width);
+    }
+
+    // min/max of at most width columns over [fromFrame, toFrame), taken from the coarsest level whose
+    // blocks are not bigger than a column. Columns are widened to block boundaries
+    public WavePeaks peaks(long fromFrame, long toFrame, int width) {
+        fromFrame = Math.max(0, fromFrame);
+        toFrame = Math.min(totalFrames, toFrame);
+        int columns = (int) Math.max(0, Math.min(width, toFrame - fromFrame));
+        float[][] min = new float[channels][columns];
+        float[][] max = new float[channels][columns];
+        if (columns == 0) {
+            return new WavePeaks(min, max, null);
+        }
+
+        long framesPerColumn = (toFrame - fromFrame) / columns;
+        int level = 0;
+        while (level + 1 < blocks.length && ((long) baseFrames << (level + 1)) <= framesPerColumn) {
+            level++;
+        }
+        long blockFrames = (long) baseFrames << level;
+
+        for (int column = 0; column < columns; column++) {
+            long first = fromFrame + column * (toFrame - fromFrame) / columns;
+            long last = fromFrame + (column + 1) * (toFrame - fromFrame) / columns - 1;
+            for (int channel = 0; channel < channels; channel++) {
+                min[channel][column] = Float.MAX_VALUE;
+                max[channel][column] = -Float.MAX_VALUE;
+            }
+            for (long block = first / blockFrames; block <= last / blockFrames; block++) {
+                int offset = (int) (levelOffsets[level] + block * blockSize(channels));
+                for (int channel = 0; channel < channels; channel++) {
+                    min[channel][column] = Math.min(min[channel][column], buffer.getFloat(offset + channel * 8));
+                    max[channel][column] = Math.max(max[channel][column], buffer.getFloat(offset + channel * 8 + 4));
+                }
+            }
+        }
+        return new WavePeaks(min, max, null);
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getBaseFrames() {
+        return baseFrames;
+    }
+
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    public int getLevels() {
+        return blocks.length;
+    }
+
+    private static int blockSize(int channels) {
+        return channels * 8;
+    }
+}
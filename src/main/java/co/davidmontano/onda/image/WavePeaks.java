@@ -0,0 +1,51 @@
+package co.davidmontano.onda.image;
+
+public class WavePeaks {
+
+    private final float[][] min;
+
+    private final float[][] max;
+
+    // null when only min/max are known
+    private final float[][] rms;
+
+    public WavePeaks(int channels, int width) {
+        this(new float[channels][width], new float[channels][width], new float[channels][width]);
+    }
+
+    public WavePeaks(float[][] min, float[][] max, float[][] rms) {
+        this.min = min;
+        this.max = max;
+        this.rms = rms;
+    }
+
+    public int getChannels() {
+        return min.length;
+    }
+
+    public int getWidth() {
+        return min.length == 0 ? 0 : min[0].length;
+    }
+
+    public float getMin(int channel, int column) {
+        return min[channel][column];
+    }
+
+    public float getMax(int channel, int column) {
+        return max[channel][column];
+    }
+
+    public boolean hasRms() {
+        return rms != null;
+    }
+
+    public float getRms(int channel, int column) {
+        return rms[channel][column];
+    }
+
+    void set(int channel, int column, float min, float max, float rms) {
+        this.min[channel][column] = min;
+        this.max[channel][column] = max;
+        this.rms[channel][column] = rms;
+    }
+}
@@ -0,0 +1,108 @@
+package co.davidmontano.onda.core;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Copyright 2015 David Montaño
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, softwar
+ * distributed under the License is distributed on an "AS IS" BASIS
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied
+ * See the License for the specific language governing permissions an
+ * limitations under the License.
+ */
+// Vector API kernels, loaded by SampleKernels on Java 17+ with --add-modules jdk.incubator.vector.
+// Samples are loaded as bytes and reinterpreted as shorts, which is little endian by definition
+final class VectorSampleKernels implements SampleKernels {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    // as many 16 bits samples as floats fit in a vector
+    private static final VectorSpecies<Byte> SAMPLES = VectorSpecies.of(byte.class,
+            VectorShape.forBitSize(FLOATS.vectorBitSize() / 2));
+
+    private static final VectorSpecies<Double> DOUBLES = VectorSpecies.of(double.class, FLOATS.vectorShape());
+
+    // lanes past the first vector are taken from the second one
+    private static final VectorShuffle<Float> EVEN = VectorShuffle.fromOp(FLOATS, i -> 2 * i);
+
+    private static final VectorShuffle<Float> ODD = VectorShuffle.fromOp(FLOATS, i -> 2 * i + 1);
+
+    private static final float SCALE = 1f / 0x8000;
+
+    private static final int LANES = FLOATS.length();
+
+    @Override
+    public void decode16(byte[] src, int index, float[] dst, int offset, int count) {
+        int i = 0;
+        for (; i <= count - LANES; i += LANES) {
+            load(src, index + i * 2).intoArray(dst, offset + i);
+        }
+        for (; i < count; i++) {
+            dst[offset + i] = sample(src, index + i * 2) * SCALE;
+        }
+    }
+
+    @Override
+    public boolean deinterleave16(byte[] src, int index, int channels, double[][] dst, int offset, int frames) {
+        if (channels == 1) {
+            int frame = 0;
+            for (; frame <= frames - LANES; frame += LANES) {
+                store(load(src, index + frame * 2), dst[0], offset + frame);
+            }
+            for (; frame < frames; frame++) {
+                dst[0][offset + frame] = sample(src, index + frame * 2) * (double) SCALE;
+            }
+            return true;
+        }
+        if (channels == 2) {
+            int frame = 0;
+            for (; frame <= frames - LANES; frame += LANES) {
+                FloatVector first = load(src, index + frame * 4);
+                FloatVector second = load(src, index + frame * 4 + LANES * 2);
+                store(first.rearrange(EVEN, second), dst[0], offset + frame);
+                store(first.rearrange(ODD, second), dst[1], offset + frame);
+            }
+            for (; frame < frames; frame++) {
+                dst[0][offset + frame] = sample(src, index + frame * 4) * (double) SCALE;
+                dst[1][offset + frame] = sample(src, index + frame * 4 + 2) * (double) SCALE;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static FloatVector load(byte[] src, int index) {
+        FloatVector samples = (FloatVector) ByteVector.fromArray(SAMPLES, src, index)
+                .reinterpretAsShorts()
+                .convertShape(VectorOperators.S2F, FLOATS, 0);
+        return samples.mul(SCALE);
+    }
+
+    // floats widen into two vectors of doubles
+    private static void store(FloatVector floats, double[] dst, int offset) {
+        ((DoubleVector) floats.convertShape(VectorOperators.F2D, DOUBLES, 0)).intoArray(dst, offset);
+        ((DoubleVector) floats.convertShape(VectorOperators.F2D, DOUBLES, 1)).intoArray(dst, offset + DOUBLES.length());
+    }
+
+    private static int sample(byte[] src, int index) {
+        return (short) ((src[index] & 0xFF) | src[index + 1] << 8);
+    }
+
+    @Override
+    public String toString() {
+        return "VectorSampleKernels{" + FLOATS + "}";
+    }
+}
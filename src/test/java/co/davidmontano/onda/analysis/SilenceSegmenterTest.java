@@ -0,0 +1,94 @@
+package co.davidmontano.onda.analysis;
+
+import co.davidmontano.onda.core.SampleFormat;
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class SilenceSegmenterTest {
+
+    private static final int WINDOW = 100;
+
+    @Test
+    public void shouldFindSegmentsBetweenSilences() {
+        // windows: 3 silent, 5 loud, 4 silent, 2 loud, 1 silent
+        Wave wave = wave(0, 0, 0, 0.5, 0.5, 0.5, 0.5, 0.5, 0, 0, 0, 0, 0.5, 0.5, 0);
+
+        List<long[]> segments = segments(new SilenceSegmenter(WINDOW, -30, -40, 300, 0), wave);
+
+        assertThat(segments.size(), is(2));
+        assertThat(segments.get(0), is(new long[]{300, 800}));
+        assertThat(segments.get(1), is(new long[]{1200, 1400}));
+    }
+
+    @Test
+    public void shouldKeepShortPausesInsideSegment() {
+        Wave wave = wave(0.5, 0.5, 0, 0, 0.5, 0);
+
+        List<long[]> segments = segments(new SilenceSegmenter(WINDOW, -30, -40, 300, 0), wave);
+
+        assertThat(segments.size(), is(1));
+        assertThat(segments.get(0), is(new long[]{0, 500}));
+    }
+
+    @Test
+    public void shouldNotCloseBetweenThresholds() {
+        // 0.02 is about -34 dB: too quiet to open, loud enough to stay open
+        Wave wave = wave(0.02, 0.5, 0.02, 0.02, 0.02, 0.02, 0, 0, 0, 0.02);
+
+        List<long[]> segments = segments(new SilenceSegmenter(WINDOW, -30, -40, 300, 0), wave);
+
+        assertThat(segments.size(), is(1));
+        assertThat(segments.get(0), is(new long[]{100, 600}));
+    }
+
+    @Test
+    public void shouldDropShortSegments() {
+        Wave wave = wave(0.5, 0, 0, 0, 0.5, 0.5, 0.5);
+
+        List<long[]> segments = segments(new SilenceSegmenter(WINDOW, -30, -40, 300, 200), wave);
+
+        assertThat(segments.size(), is(1));
+        assertThat(segments.get(0), is(new long[]{400, 700}));
+    }
+
+    @Test
+    public void shouldSplitAndTrimAsViews() {
+        Wave wave = wave(0, 0, 0.5, 0.5, 0, 0, 0, 0.25, 0);
+        SilenceSegmenter segmenter = new SilenceSegmenter(WINDOW, -30, -40, 200, 0);
+
+        List<Wave> parts = segmenter.split(wave);
+        Wave trimmed = segmenter.trim(wave);
+
+        assertThat(parts.size(), is(2));
+        assertThat(parts.get(0).getTotalSamples(), is(200L));
+        assertThat(parts.get(1).getTotalSamples(), is(100L));
+        assertThat(trimmed.getTotalSamples(), is(600L));
+        assertThat(segmenter.trim(wave(0, 0)).getTotalSamples(), is(0L));
+    }
+
+    private static List<long[]> segments(SilenceSegmenter segmenter, Wave wave) {
+        List<long[]> segments = new ArrayList<>();
+        segmenter.segment(wave, (startFrame, endFrame) -> segments.add(new long[]{startFrame, endFrame}));
+        return segments;
+    }
+
+    // one window of WINDOW frames per level, alternating sign so the window RMS is the level
+    private static Wave wave(double... levels) {
+        ByteBuffer bytes = ByteBuffer.allocate(levels.length * WINDOW * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (double level : levels) {
+            for (int frame = 0; frame < WINDOW; frame++) {
+                bytes.putFloat((float) (frame % 2 == 0 ? level : -level));
+            }
+        }
+        return new TestWave(bytes.array(), 1, SampleFormat.FLOAT_32, levels.length * WINDOW);
+    }
+}
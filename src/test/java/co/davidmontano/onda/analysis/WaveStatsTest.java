@@ -0,0 +1,121 @@
+package co.davidmontano.onda.analysis;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.SampleFormat;
+import co.davidmontano.onda.core.StreamingWave;
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class WaveStatsTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void shouldComputeEveryStatisticPerChannel() {
+        // channel 0: +0.5, +0.5, -0.5, -0.5 repeated. Channel 1: 0.25 with two clipped samples
+        float[] frames = new float[8 * 2];
+        for (int frame = 0; frame < 8; frame++) {
+            frames[frame * 2] = frame % 4 < 2 ? 0.5f : -0.5f;
+            frames[frame * 2 + 1] = 0.25f;
+        }
+        frames[3] = 1;
+        frames[5] = -1;
+
+        WaveStats stats = WaveStats.of(floatWave(frames, 2));
+
+        assertThat(stats.getFrames(), is(8L));
+        assertThat((double) stats.getPeak(0), closeTo(0.5, DELTA));
+        assertThat((double) stats.getRms(0), closeTo(0.5, DELTA));
+        assertThat((double) stats.getDcOffset(0), closeTo(0, DELTA));
+        assertThat((double) stats.getCrestFactor(0), closeTo(1, DELTA));
+        assertThat(stats.getClipped(0), is(0L));
+        // crossings at frames 2, 4 and 6 of 7 pairs
+        assertThat((double) stats.getZeroCrossingRate(0), closeTo(3 / 7.0, DELTA));
+
+        assertThat((double) stats.getPeak(1), closeTo(1, DELTA));
+        assertThat((double) stats.getDcOffset(1), closeTo((6 * 0.25) / 8, DELTA));
+        assertThat((double) stats.getRms(1), closeTo(Math.sqrt((6 * 0.0625 + 2) / 8), DELTA));
+        assertThat(stats.getClipped(1), is(2L));
+        // 0.25 -> 1 -> -1 -> 0.25
+        assertThat((double) stats.getZeroCrossingRate(1), closeTo(2 / 7.0, DELTA));
+    }
+
+    @Test
+    public void shouldMergeAdjacentRangesAsOne() {
+        Random random = new Random(42);
+        float[] frames = new float[1000 * 2];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = random.nextFloat() * 2 - 1;
+        }
+        StatsAccumulator whole = new StatsAccumulator(2, 0.99f);
+        whole.accept(frames, 0, 1000);
+
+        StatsAccumulator merged = new StatsAccumulator(2, 0.99f);
+        int[] cuts = {0, 1, 250, 251, 700, 1000};
+        for (int i = 1; i < cuts.length; i++) {
+            StatsAccumulator part = new StatsAccumulator(2, 0.99f);
+            part.accept(frames, cuts[i - 1] * 2, cuts[i] - cuts[i - 1]);
+            merged.merge(part);
+        }
+
+        WaveStats expected = whole.summary(44100);
+        WaveStats result = merged.summary(44100);
+        for (int channel = 0; channel < 2; channel++) {
+            assertThat((double) result.getPeak(channel), closeTo(expected.getPeak(channel), DELTA));
+            assertThat((double) result.getRms(channel), closeTo(expected.getRms(channel), DELTA));
+            assertThat((double) result.getDcOffset(channel), closeTo(expected.getDcOffset(channel), DELTA));
+            assertThat(result.getClipped(channel), is(expected.getClipped(channel)));
+            assertThat((double) result.getZeroCrossingRate(channel), closeTo(expected.getZeroCrossingRate(channel), DELTA));
+        }
+    }
+
+    @Test
+    public void shouldSplitSeekableWavesAndMatchSequentialRead() throws IOException {
+        Wave[] files = new Wave[15];
+        Wave[] streams = new Wave[15];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new FileWave(STEREO);
+            streams[i] = new StreamingWave(new FileInputStream(STEREO));
+        }
+
+        WaveStats parallel = WaveStats.of(Wave.concat(files));
+        WaveStats sequential = WaveStats.of(Wave.concat(streams));
+
+        assertThat(parallel.getFrames(), is(sequential.getFrames()));
+        for (int channel = 0; channel < 2; channel++) {
+            assertThat((double) parallel.getPeak(channel), closeTo(sequential.getPeak(channel), DELTA));
+            assertThat((double) parallel.getRms(channel), closeTo(sequential.getRms(channel), DELTA));
+            assertThat((double) parallel.getDcOffset(channel), closeTo(sequential.getDcOffset(channel), DELTA));
+            assertThat(parallel.getClipped(channel), is(sequential.getClipped(channel)));
+            assertThat((double) parallel.getZeroCrossingRate(channel), closeTo(sequential.getZeroCrossingRate(channel), DELTA));
+        }
+    }
+
+    @Test
+    public void shouldUseFullScaleOfFormatAsClipLevel() {
+        assertThat((double) StatsAccumulator.clipLevel(SampleFormat.PCM_SIGNED_16), closeTo(32767 / 32768.0, DELTA));
+        assertThat((double) StatsAccumulator.clipLevel(SampleFormat.PCM_UNSIGNED_8), closeTo(127 / 128.0, DELTA));
+        assertThat((double) StatsAccumulator.clipLevel(SampleFormat.FLOAT_32), closeTo(1, DELTA));
+    }
+
+    private static Wave floatWave(float[] frames, int channels) {
+        ByteBuffer bytes = ByteBuffer.allocate(frames.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float amplitude : frames) {
+            bytes.putFloat(amplitude);
+        }
+        return new TestWave(bytes.array(), channels, SampleFormat.FLOAT_32, frames.length / channels);
+    }
+}
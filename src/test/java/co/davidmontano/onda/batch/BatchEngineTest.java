@@ -0,0 +1,132 @@
+package co.davidmontano.onda.batch;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.exception.NotAudioException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BatchEngineTest {
+
+    private static final Path STEREO = Paths.get("src/test/resources/2channel_441khz_16bps.wav");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldAnalyseEveryWaveUnderDirectory() throws IOException {
+        Path directory = corpus(20);
+        Files.write(directory.resolve("notes.txt"), new byte[]{1, 2, 3});
+
+        long expected = new FileWave(STEREO.toString()).getTotalSamples();
+        List<BatchResult<Long>> results = new ArrayList<>();
+        new BatchEngine(4).run(directory, wave -> wave.getTotalSamples(), results::add);
+
+        assertThat(results.size(), is(20));
+        for (BatchResult<Long> result : results) {
+            assertThat(result.isSuccess(), is(true));
+            assertThat(result.getResult(), is(expected));
+        }
+    }
+
+    @Test
+    public void shouldIsolateFailures() throws IOException {
+        Path directory = corpus(5);
+        Files.write(directory.resolve("broken.wav"), "this is not a wave file, just some text in a file".getBytes("UTF-8"));
+
+        List<BatchResult<Integer>> failures = new ArrayList<>();
+        AtomicInteger succeeded = new AtomicInteger();
+        new BatchEngine(2).run(directory, wave -> wave.getChannels(), result -> {
+            if (result.isSuccess()) {
+                succeeded.incrementAndGet();
+            } else {
+                failures.add(result);
+            }
+        });
+
+        assertThat(succeeded.get(), is(5));
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0).getPath().getFileName().toString(), is("broken.wav"));
+        assertThat(failures.get(0).getFailure(), instanceOf(NotAudioException.class));
+    }
+
+    @Test
+    public void shouldReportDirectoryThatCannotBeWalked() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        Files.copy(STEREO, first.resolve("wave.wav"));
+        Files.copy(STEREO, second.resolve("wave.wav"));
+
+        // the walk already listed both directories when the first result comes, the other one is gone by then
+        List<BatchResult<Integer>> results = new ArrayList<>();
+        new BatchEngine(1).run(directory, wave -> wave.getChannels(), result -> {
+            if (results.isEmpty()) {
+                Path other = result.getPath().getParent().equals(first) ? second : first;
+                delete(other);
+            }
+            results.add(result);
+        });
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(results.get(1).getFailure(), instanceOf(NoSuchFileException.class));
+    }
+
+    @Test
+    public void shouldNotGoOverMaxInFlight() throws IOException {
+        Path directory = corpus(30);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger results = new AtomicInteger();
+
+        new BatchEngine(3, true).run(directory, wave -> {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return now;
+        }, result -> results.incrementAndGet());
+
+        assertThat(results.get(), is(30));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(3));
+    }
+
+    private static void delete(Path directory) {
+        try {
+            Files.delete(directory.resolve("wave.wav"));
+            Files.delete(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path corpus(int files) throws IOException {
+        Path directory = folder.newFolder().toPath();
+        Path nested = Files.createDirectory(directory.resolve("nested"));
+        for (int i = 0; i < files; i++) {
+            Files.copy(STEREO, (i % 2 == 0 ? directory : nested).resolve("wave" + i + ".wav"));
+        }
+        return directory;
+    }
+}
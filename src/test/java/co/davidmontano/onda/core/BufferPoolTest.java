@@ -0,0 +1,157 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BufferPoolTest {
+
+    @Test
+    public void shouldHandOutBuffersOfSizeClass() {
+        BufferPool pool = new BufferPool(true, 1 << 20, false);
+
+        ByteBuffer small = pool.acquire(100);
+        ByteBuffer medium = pool.acquire(5000);
+        ByteBuffer exact = pool.acquire(65536);
+
+        assertThat(small.capacity(), is(BufferPool.MIN_SIZE));
+        assertThat(small.limit(), is(100));
+        assertThat(medium.capacity(), is(8192));
+        assertThat(medium.limit(), is(5000));
+        assertThat(exact.capacity(), is(65536));
+        assertThat(medium.isDirect(), is(true));
+        assertThat(medium.order(), is(ByteOrder.LITTLE_ENDIAN));
+        assertThat(pool.getInUseBytes(), is(4096L + 8192 + 65536));
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffers() {
+        BufferPool pool = new BufferPool(false, 1 << 20, false);
+
+        ByteBuffer first = pool.acquire(5000);
+        first.order(ByteOrder.BIG_ENDIAN).position(10);
+        pool.release(first);
+        ByteBuffer second = pool.acquire(6000);
+
+        assertThat(second, sameInstance(first));
+        assertThat(second.position(), is(0));
+        assertThat(second.limit(), is(6000));
+        assertThat(second.order(), is(ByteOrder.LITTLE_ENDIAN));
+        assertThat(second.hasArray(), is(true));
+        assertThat(pool.getAllocations(), is(1L));
+        assertThat(pool.getAcquisitions(), is(2L));
+    }
+
+    @Test
+    public void shouldShareBuffersReleasedByOtherThreads() throws InterruptedException {
+        BufferPool pool = new BufferPool(true, 1 << 20, false);
+        ByteBuffer[] buffers = {pool.acquire(4096), pool.acquire(4096)};
+
+        // both are shared while the lists have room
+        Thread other = new Thread(() -> {
+            pool.release(buffers[0]);
+            pool.release(buffers[1]);
+        });
+        other.start();
+        other.join();
+        ByteBuffer reused = pool.acquire(4096);
+
+        assertThat(reused, sameInstance(buffers[0]));
+        assertThat(pool.getSharedBytes(), is(4096L));
+    }
+
+    @Test
+    public void shouldReuseBuffersAcrossThreadPerTask() throws InterruptedException {
+        BufferPool pool = new BufferPool(false, 1 << 20, false);
+
+        for (int task = 0; task < 100; task++) {
+            Thread thread = new Thread(() -> pool.release(pool.acquire(65536)));
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(pool.getAcquisitions(), is(100L));
+        assertThat(pool.getAllocations(), is(1L));
+        assertThat(pool.getSharedBytes(), is(65536L));
+    }
+
+    @Test
+    public void shouldNotKeepMoreThanMaxBytes() {
+        BufferPool pool = new BufferPool(true, 8192, false);
+        ByteBuffer[] buffers = new ByteBuffer[4];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire(4096);
+        }
+
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+
+        // two shared, one in the thread cache once the lists are full and one dropped
+        assertThat(pool.getSharedBytes(), is(8192L));
+        assertThat(pool.getDropped(), is(1L));
+        assertThat(pool.getInUseBytes(), is(0L));
+    }
+
+    @Test
+    public void shouldNotPoolBuffersAboveMaxSize() {
+        BufferPool pool = new BufferPool(true, Long.MAX_VALUE, false);
+
+        ByteBuffer big = pool.acquire(BufferPool.MAX_SIZE + 1);
+        pool.release(big);
+
+        assertThat(big.capacity(), is(BufferPool.MAX_SIZE + 1));
+        assertThat(pool.acquire(BufferPool.MAX_SIZE + 1), not(sameInstance(big)));
+        assertThat(pool.getDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldTrackLeaks() {
+        BufferPool pool = new BufferPool(true, 1 << 20, true);
+        ByteBuffer released = pool.acquire(100);
+        pool.acquire(100);
+        pool.acquire(100000);
+
+        pool.release(released);
+
+        assertThat(pool.reportLeaks(), is(2));
+        assertThat(new BufferPool(true, 1 << 20, false).reportLeaks(), is(-1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnDoubleReleaseWhenTracking() {
+        BufferPool pool = new BufferPool(true, 1 << 20, true);
+        ByteBuffer buffer = pool.acquire(100);
+        pool.release(buffer);
+        pool.release(buffer);
+    }
+
+    @Test
+    public void shouldIgnoreDoubleReleaseWithoutTracking() {
+        // the first buffer goes to the shared list, the second to the thread cache once the list is full
+        BufferPool pool = new BufferPool(false, 4096, false);
+        ByteBuffer shared = pool.acquire(100);
+        ByteBuffer kept = pool.acquire(100);
+        pool.release(shared);
+        pool.release(kept);
+
+        pool.release(shared);
+        pool.release(kept);
+
+        assertThat(pool.getReleases(), is(2L));
+        assertThat(pool.getInUseBytes(), is(0L));
+        ByteBuffer first = pool.acquire(100);
+        ByteBuffer second = pool.acquire(100);
+        ByteBuffer third = pool.acquire(100);
+        assertThat(first, sameInstance(kept));
+        assertThat(second, sameInstance(shared));
+        assertThat(third, not(sameInstance(shared)));
+        assertThat(third, not(sameInstance(kept)));
+    }
+}
@@ -0,0 +1,87 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.NotAudioException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ChunkReaderTest {
+
+    private static final int JUNK_CHUNKS = 200000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadSameSubchunksFromChannelAndStream() throws IOException {
+        File file = new File("src/test/resources/2channel_441khz_16bps.wav");
+        Set<Subchunk> fromStream = new ChunkReader().read(new ByteArrayInputStream(Files.readAllBytes(file.toPath())), file.length());
+        Set<Subchunk> fromChannel;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            fromChannel = new ChunkReader().read(channel);
+        }
+
+        assertThat(fromChannel, is(fromStream));
+        for (Subchunk subchunk : fromStream) {
+            for (Subchunk other : fromChannel) {
+                if (other.equals(subchunk)) {
+                    assertThat(other.getOffset(), is(subchunk.getOffset()));
+                    assertThat(other.getSubchunkSize(), is(subchunk.getSubchunkSize()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadManySubchunksWithoutRecursion() throws IOException {
+        byte[] riff = manyChunks();
+        File file = folder.newFile("junk.wav");
+        Files.write(file.toPath(), riff);
+
+        Set<Subchunk> fromStream = new ChunkReader().read(new ByteArrayInputStream(riff), riff.length);
+        Set<Subchunk> fromChannel;
+        try (FileChannel channel = FileChannel.open(Paths.get(file.getPath()), StandardOpenOption.READ)) {
+            fromChannel = new ChunkReader().read(channel);
+        }
+
+        assertThat(fromStream.size(), is(2));
+        assertThat(fromChannel, is(fromStream));
+        for (Subchunk subchunk : fromChannel) {
+            if (subchunk.isSubchunk("data")) {
+                assertThat(subchunk.getOffset(), is(riff.length - 2L));
+                assertThat(subchunk.getSubchunkSize(), is(2L));
+            }
+        }
+    }
+
+    @Test(expected = NotAudioException.class)
+    public void shouldRejectNonRiffFiles() throws IOException {
+        byte[] notRiff = "RIFX\0\0\0\0WAVE".getBytes("US-ASCII");
+        new ChunkReader().read(new ByteArrayInputStream(notRiff), notRiff.length);
+    }
+
+    // RIFF header, many one-byte "junk" chunks (padded) and a two bytes data chunk
+    private static byte[] manyChunks() {
+        ByteBuffer buffer = ByteBuffer.allocate(12 + JUNK_CHUNKS * 10 + 10).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(Subchunk.fourcc("RIFF")).putInt(buffer.capacity() - 8).putInt(Subchunk.fourcc("WAVE"));
+        for (int i = 0; i < JUNK_CHUNKS; i++) {
+            buffer.putInt(Subchunk.fourcc("junk")).putInt(1).put((byte) 0).put((byte) 0);
+        }
+        buffer.putInt(Subchunk.fourcc("data")).putInt(2).put((byte) 1).put((byte) 2);
+        return buffer.array();
+    }
+}
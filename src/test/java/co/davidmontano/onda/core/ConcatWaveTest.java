@@ -0,0 +1,99 @@
+package co.davidmontano.onda.core;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static co.davidmontano.onda.core.SlicedWaveTest.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertTrue;
+
+public class ConcatWaveTest {
+
+    private static final String MONO = "src/test/resources/1channel_441khz_16bps.wav";
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000000001;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWaveOfUnknownLength() throws IOException {
+        Wave.concat(new FileWave(STEREO), new TestWave(new byte[40], 2, 2, Wave.UNKNOWN_LENGTH));
+    }
+
+    @Test
+    public void shouldReadPartsOneAfterTheOther() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+
+        Wave concat = Wave.concat(wave.slice(3000, 4000), wave.slice(0, 10), new MappedWave(wave).slice(500, 600));
+
+        assertThat(concat, instanceOf(SeekableWave.class));
+        assertThat(concat.getTotalSamples(), is(1110L));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(concat.data()),
+                join(range(data, 3000, 4000), range(data, 0, 10), range(data, 500, 600))));
+    }
+
+    @Test
+    public void shouldConcatStreamingWaves() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+
+        Wave concat = Wave.concat(new StreamingWave(new FileInputStream(STEREO)).slice(0, 100), wave.slice(200, 300));
+
+        assertThat(concat, not(instanceOf(SeekableWave.class)));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(Channels.newInputStream(concat.dataChannel())),
+                join(range(data, 0, 100), range(data, 200, 300))));
+    }
+
+    @Test
+    public void shouldSliceAcrossParts() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+        Wave concat = Wave.concat(wave.slice(0, 100), wave.slice(100, 100), wave.slice(1000, 1100));
+
+        Wave slice = concat.slice(50, 150);
+
+        assertThat(slice.getTotalSamples(), is(100L));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(slice.data()), join(range(data, 50, 100), range(data, 1000, 1050))));
+    }
+
+    @Test
+    public void shouldSeekAcrossParts() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        Wave concat = Wave.concat(wave.slice(0, 100), wave.slice(1000, 1100));
+        SamplesIterator expected = new SamplesIterator(wave);
+        SamplesIterator result = new SamplesIterator(concat);
+
+        Sample sample = result.moveToSample(150);
+        Sample expectedSample = expected.moveToSample(1050);
+        assertThat(sample.getAmplitude(0), closeTo(expectedSample.getAmplitude(0), DELTA));
+        sample = result.moveToSample(20);
+        expectedSample = expected.moveToSample(20);
+        assertThat(sample.getAmplitude(1), closeTo(expectedSample.getAmplitude(1), DELTA));
+        expected.close();
+        result.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDifferentFormats() throws IOException {
+        Wave.concat(new FileWave(MONO), new FileWave(STEREO));
+    }
+
+    private static byte[] join(byte[]... parts) throws IOException {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            joined.write(part);
+        }
+        return joined.toByteArray();
+    }
+}
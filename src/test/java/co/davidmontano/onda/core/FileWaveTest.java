@@ -4,10 +4,23 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Copyright 2015 David Montaño
@@ -52,4 +65,95 @@ public class FileWaveTest {
         assertThat(trimmed.getLength(), closeTo(0.1, 0.001));
         assertThat(bytesRead, is(4410));
     }
+
+    @Test
+    public void shouldShareOneFileBetweenConcurrentReaders() throws Exception {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        byte[] expected = read(wave);
+        WaveMetrics metrics = new WaveMetrics();
+        WaveMetrics.addListener(metrics);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            SeekableByteChannel holder = wave.dataChannel();
+            List<Callable<byte[]>> readers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                // slices share the file of their wave too
+                FileWave reader = i % 2 == 0 ? wave : wave.slice(0, wave.getTotalSamples());
+                readers.add(() -> read(reader));
+            }
+            for (Future<byte[]> read : executor.invokeAll(readers)) {
+                assertTrue(Arrays.equals(read.get(), expected));
+            }
+            assertThat(wave.getFile().getReferences(), is(1));
+            assertThat(metrics.getFilesOpened(), is(1L));
+
+            holder.close();
+            holder.close();
+            assertThat(wave.getFile().getReferences(), is(0));
+        } finally {
+            executor.shutdown();
+            WaveMetrics.removeListener(metrics);
+        }
+    }
+
+    @Test
+    public void shouldReleaseFileWhenStoppedStreamIsClosed() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        // long enough to split, every part reads through the file of the wave
+        Wave concat = Wave.concat(wave, wave, wave, wave, wave, wave, wave, wave, wave, wave);
+        long inUse = BufferPool.heap().getInUseBytes();
+
+        try (Stream<Sample> frames = wave.frames()) {
+            assertTrue(frames.findFirst().isPresent());
+            assertThat(wave.getFile().getReferences(), is(1));
+        }
+        try (Stream<Sample> frames = concat.parallelFrames()) {
+            assertTrue(frames.anyMatch(sample -> sample.getAmplitude(0) != 0));
+        }
+
+        assertThat(wave.getFile().getReferences(), is(0));
+        assertThat(BufferPool.heap().getInUseBytes(), lessThanOrEqualTo(inUse));
+    }
+
+    @Test
+    public void shouldReleaseFileOfReaderCollectedWithoutClose() throws IOException, InterruptedException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+
+        new SamplesIterator(wave).next();
+        assertThat(wave.getFile().getReferences(), is(1));
+
+        for (int attempt = 0; attempt < 100 && wave.getFile().getReferences() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            ReaderCleaner.expunge();
+        }
+        assertThat(wave.getFile().getReferences(), is(0));
+    }
+
+    @Test
+    public void shouldReopenFileClosedByInterruptedReader() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        SeekableByteChannel reader = wave.dataChannel();
+        SeekableByteChannel interrupted = wave.dataChannel();
+
+        Thread.currentThread().interrupt();
+        try {
+            IOUtils.toByteArray(Channels.newInputStream(interrupted));
+        } catch (IOException e) {
+            // closed by interrupt, for every reader of the file
+        }
+        Thread.interrupted();
+
+        byte[] data = IOUtils.toByteArray(Channels.newInputStream(reader));
+        assertThat(data.length, is((int) wave.getTotalSamples() * 4));
+        reader.close();
+        interrupted.close();
+        assertThat(wave.getFile().getReferences(), is(0));
+    }
+
+    private static byte[] read(Wave wave) throws IOException {
+        try (InputStream data = wave.data()) {
+            return IOUtils.toByteArray(data);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Spliterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertTrue;
+
+public class FrameSpliteratorTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void shouldSplitSeekableWaveInFrameRanges() throws IOException {
+        Wave wave = longWave();
+        Spliterator<Sample> suffix = new FrameSpliterator(wave);
+        Spliterator<Sample> prefix = suffix.trySplit();
+        long middle = wave.getTotalSamples() / 2;
+
+        assertThat(prefix, is(notNullValue()));
+        assertThat(prefix.estimateSize(), is(middle));
+        assertThat(suffix.estimateSize(), is(wave.getTotalSamples() - middle));
+        try (SamplesIterator expected = new SamplesIterator(wave)) {
+            prefix.tryAdvance(sample -> assertThat(sample.getAmplitude(1), closeTo(expected.next().getAmplitude(1), DELTA)));
+            suffix.tryAdvance(sample -> assertThat(sample.getAmplitude(1), closeTo(expected.moveToSample(middle).getAmplitude(1), DELTA)));
+        }
+        ((FrameSpliterator) suffix).close();
+    }
+
+    @Test
+    public void shouldNotSplitStreams() {
+        TestWave wave = new TestWave(new byte[400000], 1, 2, 200000);
+        assertThat(new FrameSpliterator(wave).trySplit(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGiveSameFramesInOrderInParallel() throws IOException {
+        Wave wave = longWave();
+
+        double[] sequential = wave.frames().mapToDouble(sample -> sample.getAmplitude(1)).toArray();
+        double[] parallel = wave.parallelFrames().mapToDouble(sample -> sample.getAmplitude(1)).toArray();
+
+        assertThat((long) sequential.length, is(wave.getTotalSamples()));
+        assertTrue(Arrays.equals(parallel, sequential));
+    }
+
+    // long enough to split in more than two ranges, every part reads its own range of the file
+    private static Wave longWave() throws IOException {
+        FileWave[] parts = new FileWave[15];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        }
+        return Wave.concat(parts);
+    }
+}
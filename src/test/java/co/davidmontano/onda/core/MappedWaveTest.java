@@ -0,0 +1,57 @@
+package co.davidmontano.onda.core;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+
+public class MappedWaveTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    @Test
+    public void shouldExposeSameDataAsFileWave() throws IOException {
+        FileWave fileWave = new FileWave(STEREO);
+        MappedWave mappedWave = new MappedWave(fileWave);
+
+        byte[] expected = IOUtils.toByteArray(fileWave.data());
+        byte[] result = IOUtils.toByteArray(mappedWave.data());
+
+        assertThat(mappedWave.getTotalSamples(), is(fileWave.getTotalSamples()));
+        assertTrue(Arrays.equals(result, expected));
+    }
+
+    @Test
+    public void shouldReturnViewOfRequestedFrames() throws IOException {
+        MappedWave wave = new MappedWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+
+        ByteBuffer frames = wave.frames(100, 3);
+
+        assertThat(frames.remaining(), is(3 * wave.getFrameSize()));
+        for (int i = 0; i < frames.remaining(); i++) {
+            assertThat(frames.get(i), is(data[100 * wave.getFrameSize() + i]));
+        }
+    }
+
+    @Test
+    public void shouldLimitViewToLastFrame() throws IOException {
+        MappedWave wave = new MappedWave(STEREO);
+        ByteBuffer frames = wave.frames(wave.getTotalSamples() - 2, 10);
+        assertThat(frames.remaining(), is(2 * wave.getFrameSize()));
+    }
+
+    @Test
+    public void shouldTrimWithoutRemapping() throws IOException {
+        MappedWave trimmed = new MappedWave(STEREO).trim(0.1);
+        byte[] result = IOUtils.toByteArray(trimmed.data());
+        assertThat(trimmed.getTotalSamples(), is(4410L));
+        assertThat(result.length, is(4410 * trimmed.getFrameSize()));
+    }
+}
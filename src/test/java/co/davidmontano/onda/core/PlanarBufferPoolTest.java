@@ -0,0 +1,81 @@
+package co.davidmontano.onda.core;
+
+import co.davidmontano.onda.core.exception.PoolExhaustedException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class PlanarBufferPoolTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000000001;
+
+    @Test
+    public void shouldDecodeSameAmplitudesAsIterator() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        PlanarBufferPool pool = new PlanarBufferPool(1 << 20);
+
+        try (PlanarSamples samples = pool.decode(wave); SamplesIterator iterator = new SamplesIterator(wave)) {
+            FloatBuffer left = samples.channel(0);
+            FloatBuffer right = samples.channel(1);
+
+            assertThat((long) samples.getFrames(), is(wave.getTotalSamples()));
+            assertThat((long) left.remaining(), is(wave.getTotalSamples()));
+            for (int frame = 0; frame < samples.getFrames(); frame++) {
+                Sample sample = iterator.next();
+                assertThat((double) left.get(frame), closeTo(sample.getAmplitude(0), DELTA));
+                assertThat((double) right.get(frame), closeTo(sample.getAmplitude(1), DELTA));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffers() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        PlanarBufferPool pool = new PlanarBufferPool(1 << 20);
+
+        pool.decode(wave).release();
+        long allocated = pool.getAllocatedBytes();
+        PlanarSamples samples = pool.decode(wave.slice(0, 1000));
+
+        assertThat(pool.getAllocatedBytes(), is(allocated));
+        assertThat(samples.getFrames(), is(1000));
+        samples.release();
+        assertThat(pool.getFreeBytes(), is(allocated));
+    }
+
+    @Test
+    public void shouldKeepBuffersUntilLastRelease() throws IOException {
+        PlanarBufferPool pool = new PlanarBufferPool(1 << 20);
+        PlanarSamples samples = pool.decode(new FileWave(STEREO));
+
+        samples.retain();
+        samples.release();
+
+        assertThat(pool.getFreeBytes(), is(0L));
+        samples.channel(0);
+        samples.release();
+        assertThat(pool.getFreeBytes(), is(pool.getAllocatedBytes()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReadReleasedSamples() throws IOException {
+        PlanarSamples samples = new PlanarBufferPool(1 << 20).decode(new FileWave(STEREO));
+        samples.release();
+        samples.channel(0);
+    }
+
+    @Test(expected = PoolExhaustedException.class)
+    public void shouldNotGrowPastMaxBytes() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        PlanarBufferPool pool = new PlanarBufferPool(wave.getTotalSamples() * 4 * 3);
+        pool.decode(wave);
+        pool.decode(wave);
+    }
+}
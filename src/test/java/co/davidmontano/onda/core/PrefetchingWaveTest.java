@@ -0,0 +1,122 @@
+package co.davidmontano.onda.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class PrefetchingWaveTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000000001;
+
+    private final WaveMetrics metrics = new WaveMetrics();
+
+    @Before
+    public void listen() {
+        WaveMetrics.addListener(metrics);
+    }
+
+    @After
+    public void stopListening() {
+        WaveMetrics.removeListener(metrics);
+    }
+
+    @Test
+    public void shouldReleaseRingWhenPrefetchFailsToStart() throws IOException {
+        long inUse = BufferPool.direct().getInUseBytes();
+        // asynchronous reads reject the negative position of the first block
+        Subchunk broken = new Subchunk("data", -1000, 4000);
+
+        try {
+            new PrefetchingChannel(STEREO, broken, 1000, 4);
+            fail("Prefetching started at a negative position");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertThat(BufferPool.direct().getInUseBytes(), is(inUse));
+    }
+
+    @Test
+    public void shouldReadSameFramesAsFileWave() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        // blocks smaller than the iterator buffer and not aligned to frames
+        PrefetchingWave prefetching = new PrefetchingWave(wave, 1001, 3);
+
+        assertSameFrames(new SamplesIterator(wave), new SamplesIterator(prefetching), wave.getTotalSamples());
+        assertThat(metrics.getFramesDecoded(), is(wave.getTotalSamples() * 2));
+    }
+
+    @Test
+    public void shouldReadSameFramesOfSlice() throws IOException {
+        FileWave wave = new FileWave(STEREO).slice(1000, 15000);
+        PrefetchingWave prefetching = new PrefetchingWave(new FileWave(STEREO), 4096, 2).slice(1000, 15000);
+
+        assertSameFrames(new SamplesIterator(wave), new SamplesIterator(prefetching), 14000);
+    }
+
+    @Test
+    public void shouldSeekInsideAndOutsideCurrentBlock() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        PrefetchingWave prefetching = new PrefetchingWave(wave, 8192, 2);
+        SamplesIterator expected = new SamplesIterator(wave);
+        SamplesIterator result = new SamplesIterator(prefetching);
+
+        long[] positions = {wave.getTotalSamples() - 1, 10, 20000, 3, 3, 5000, 0};
+        for (long position : positions) {
+            Sample sample = result.moveToSample(position);
+            assertThat(sample.getAmplitude(0), closeTo(expected.moveToSample(position).getAmplitude(0), DELTA));
+        }
+        result.close();
+        expected.close();
+    }
+
+    @Test
+    public void shouldReadWholeBlocksThroughChannel() throws IOException {
+        PrefetchingWave prefetching = new PrefetchingWave(new FileWave(STEREO), 1000, 4);
+        // only the data reads count, the header may have been opened for the cache just now
+        long headerOpens = metrics.getFilesOpened();
+
+        long total = 0;
+        try (SeekableByteChannel channel = prefetching.dataChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1500);
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                total += read;
+                buffer.clear();
+            }
+            assertThat(channel.position(), is(channel.size()));
+        }
+
+        assertThat(total, is(prefetching.getTotalSamples() * 4));
+        assertThat(metrics.getFilesOpened(), is(headerOpens + 1));
+    }
+
+    private static void assertSameFrames(SamplesIterator expected, SamplesIterator result, long frames) throws IOException {
+        float[] expectedBlock = new float[2 * 777];
+        float[] resultBlock = new float[2 * 777];
+        long total = 0;
+        int read;
+        while ((read = expected.readFrames(expectedBlock, 0, 777)) > 0) {
+            assertThat(result.readFrames(resultBlock, 0, 777), is(read));
+            for (int i = 0; i < read * 2; i++) {
+                assertThat((double) resultBlock[i], closeTo(expectedBlock[i], DELTA));
+            }
+            total += read;
+        }
+        assertThat(result.readFrames(resultBlock, 0, 777), is(-1));
+        assertThat(total, is(frames));
+        result.close();
+        expected.close();
+    }
+}
@@ -0,0 +1,36 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class SampleCursorTest {
+
+    private static final double DELTA = 0.000000001;
+
+    @Test
+    public void shouldVisitSameSamplesAsIterator() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        SamplesIterator iterator = new SamplesIterator(wave);
+        SampleCursor cursor = new SampleCursor(wave);
+
+        long frames = 0;
+        while (cursor.advance()) {
+            Sample sample = iterator.next();
+            assertThat(cursor.amplitude(0), closeTo(sample.getAmplitude(0), DELTA));
+            assertThat(cursor.amplitude(1), closeTo(sample.getAmplitude(1), DELTA));
+            assertThat(cursor.position(), is(frames));
+            frames++;
+        }
+
+        assertThat(frames, is(wave.getTotalSamples()));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(cursor.advance(), is(false));
+        cursor.close();
+        iterator.close();
+    }
+}
@@ -0,0 +1,60 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeTrue;
+
+public class SampleKernelsTest {
+
+    private static final double DELTA = 0.000000001;
+
+    // not a multiple of any vector length, so the tails are covered
+    private static final int FRAMES = 1003;
+
+    @Test
+    public void shouldDecodeAsScalarLoops() {
+        assumeTrue(SampleKernels.VECTOR != null);
+        byte[] bytes = randomBytes(FRAMES * 2 + 1);
+        ByteBuffer samples = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        float[] result = new float[FRAMES];
+        SampleKernels.VECTOR.decode16(bytes, 1, result, 0, FRAMES);
+
+        for (int i = 0; i < FRAMES; i++) {
+            assertThat((double) result[i], closeTo(samples.getShort(1 + i * 2) / 32768.0, DELTA));
+        }
+    }
+
+    @Test
+    public void shouldDeinterleaveAsScalarLoops() {
+        assumeTrue(SampleKernels.VECTOR != null);
+        for (int channels = 1; channels <= 2; channels++) {
+            byte[] bytes = randomBytes(FRAMES * 2 * channels);
+            ByteBuffer samples = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+            double[][] result = new double[channels][FRAMES + 1];
+            boolean supported = SampleKernels.VECTOR.deinterleave16(bytes, 0, channels, result, 1, FRAMES);
+
+            assertThat(supported, is(true));
+            for (int frame = 0; frame < FRAMES; frame++) {
+                for (int channel = 0; channel < channels; channel++) {
+                    double expected = samples.getShort((frame * channels + channel) * 2) / 32768.0;
+                    assertThat(result[channel][frame + 1], closeTo(expected, DELTA));
+                }
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -4,11 +4,15 @@ package co.davidmontano.onda.core;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 
 /**
  * Copyright 2015 David Montaño
@@ -29,17 +33,21 @@ public class SamplesIteratorTest {
 
     private static final double DELTA = 0.000000001;
 
-    private static final double MAX_AMPLITUDE_16BITS = 65535;
+    private static final double FULL_SCALE_8BITS = 128;
 
-    private static final double MAX_AMPLITUDE_32BITS = 4294967295L;
+    private static final double FULL_SCALE_16BITS = 32768;
+
+    private static final double FULL_SCALE_24BITS = 8388608;
+
+    private static final double FULL_SCALE_32BITS = 2147483648L;
 
     @Test
     public void shouldIterateSamples_1Channel_16bits() {
 
         byte[] inputArray = {
-                0, (byte) 255, //sample 1: 65280
+                0, (byte) 255, //sample 1: -256
                 (byte) 255, 0, //sample 2: 255
-                (byte) 255, (byte) 255, //sample 3: 65535
+                (byte) 255, (byte) 255, //sample 3: -1
                 0, 0, //sample 4: 0
                 10, 10 //sample 5: 2570
         };
@@ -48,19 +56,19 @@ public class SamplesIteratorTest {
         Sample sample = null;
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(65280 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(-256 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(255 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(255 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(1, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(-1 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
         assertThat(sample.getAmplitude(0), closeTo(0, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(2570 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(2570 / FULL_SCALE_16BITS, DELTA));
     }
 
     @Test
@@ -69,7 +77,7 @@ public class SamplesIteratorTest {
                 (byte) 255, 0, 0, 0, //sample 1: 255
                 100, (byte) 255, 0, 0, //sample 2: 65380
                 0, 3, 0, 1, //sample 3: 0, 3, 0, 1 becomes 3 << 8 & 1 << 24 = 1 0000 0000 0000 0011 0000 0000 = 16777984
-                (byte) 255, (byte) 255, (byte) 255, (byte) 255, //sample 4: 4294967295L
+                (byte) 255, (byte) 255, (byte) 255, (byte) 255, //sample 4: -1
                 0, 0, 0, 0 //sample 5: 0
         };
         InputStream input = new ByteArrayInputStream(inputArray);
@@ -78,16 +86,16 @@ public class SamplesIteratorTest {
         Sample sample = null;
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(255 / MAX_AMPLITUDE_32BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(255 / FULL_SCALE_32BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(65380 / MAX_AMPLITUDE_32BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(65380 / FULL_SCALE_32BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(16777984 / MAX_AMPLITUDE_32BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(16777984 / FULL_SCALE_32BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(1, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(-1 / FULL_SCALE_32BITS, DELTA));
 
         sample = iterator.next();
         assertThat(sample.getAmplitude(0), closeTo(0, DELTA));
@@ -96,7 +104,7 @@ public class SamplesIteratorTest {
     @Test
     public void shouldIterateSamples_2Channel_16bits() {
         byte[] inputArray = {
-                0, (byte) 255, (byte) 255, 0, //sample 1: {65280, 255}
+                0, (byte) 255, (byte) 255, 0, //sample 1: {-256, 255}
                 0, 10, 0, 20, //sample 2: {2560, 5120}
                 5, 0, 6, 0, //sample 3: {5, 6}
                 0, 7, 0, 8 //sample 4: {1792, 2048}
@@ -107,21 +115,169 @@ public class SamplesIteratorTest {
         Sample sample = null;
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(65280 / MAX_AMPLITUDE_16BITS, DELTA));
-        assertThat(sample.getAmplitude(1), closeTo(255 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(-256 / FULL_SCALE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(255 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(2560 / MAX_AMPLITUDE_16BITS, DELTA));
-        assertThat(sample.getAmplitude(1), closeTo(5120 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(2560 / FULL_SCALE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(5120 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(5 / MAX_AMPLITUDE_16BITS, DELTA));
-        assertThat(sample.getAmplitude(1), closeTo(6 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(5 / FULL_SCALE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(6 / FULL_SCALE_16BITS, DELTA));
 
         sample = iterator.next();
-        assertThat(sample.getAmplitude(0), closeTo(1792 / MAX_AMPLITUDE_16BITS, DELTA));
-        assertThat(sample.getAmplitude(1), closeTo(2048 / MAX_AMPLITUDE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(1792 / FULL_SCALE_16BITS, DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(2048 / FULL_SCALE_16BITS, DELTA));
+
+    }
+
+    @Test
+    public void shouldReadInterleavedFrames_2Channel_16bits() {
+        byte[] inputArray = {
+                0, (byte) 255, (byte) 255, 0, //sample 1: {-256, 255}
+                0, 10, 0, 20, //sample 2: {2560, 5120}
+                5, 0, 6, 0 //sample 3: {5, 6}
+        };
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 2, 2, 3));
+
+        float[] frames = new float[8];
+        int framesRead = iterator.readFrames(frames, 2, 5);
+
+        assertThat(framesRead, is(3));
+        assertThat((double) frames[2], closeTo(-256 / FULL_SCALE_16BITS, DELTA));
+        assertThat((double) frames[3], closeTo(255 / FULL_SCALE_16BITS, DELTA));
+        assertThat((double) frames[6], closeTo(5 / FULL_SCALE_16BITS, DELTA));
+        assertThat((double) frames[7], closeTo(6 / FULL_SCALE_16BITS, DELTA));
+        assertThat(iterator.readFrames(frames, 0, 1), is(-1));
+    }
+
+    @Test
+    public void shouldReadFramesPerChannel_2Channel_16bits() {
+        byte[] inputArray = {
+                0, (byte) 255, (byte) 255, 0, //sample 1: {-256, 255}
+                0, 10, 0, 20, //sample 2: {2560, 5120}
+                5, 0, 6, 0 //sample 3: {5, 6}
+        };
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 2, 2, 3));
+        iterator.next();
+
+        double[][] frames = new double[2][2];
+        int framesRead = iterator.readFrames(frames, 0, 2);
+
+        assertThat(framesRead, is(2));
+        assertThat(frames[0][0], closeTo(2560 / FULL_SCALE_16BITS, DELTA));
+        assertThat(frames[1][0], closeTo(5120 / FULL_SCALE_16BITS, DELTA));
+        assertThat(frames[0][1], closeTo(5 / FULL_SCALE_16BITS, DELTA));
+        assertThat(frames[1][1], closeTo(6 / FULL_SCALE_16BITS, DELTA));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void shouldIterateSamples_1Channel_8bits() {
+        byte[] inputArray = {(byte) 128, 0, (byte) 255, 64};
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 1, 1, 4));
+
+        assertThat(iterator.next().getAmplitude(0), closeTo(0, DELTA));
+        assertThat(iterator.next().getAmplitude(0), closeTo(-1, DELTA));
+        assertThat(iterator.next().getAmplitude(0), closeTo(127 / FULL_SCALE_8BITS, DELTA));
+        assertThat(iterator.next().getAmplitude(0), closeTo(-64 / FULL_SCALE_8BITS, DELTA));
+    }
+
+    @Test
+    public void shouldReadFrames_2Channel_24bits() {
+        byte[] inputArray = {
+                1, 0, 0, (byte) 255, (byte) 255, (byte) 255, //sample 1: {1, -1}
+                0, 0, (byte) 128, (byte) 255, (byte) 255, 127 //sample 2: {-8388608, 8388607}
+        };
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 2, 3, 2));
+
+        double[][] frames = new double[2][2];
+        int framesRead = iterator.readFrames(frames, 0, 2);
+
+        assertThat(framesRead, is(2));
+        assertThat(frames[0][0], closeTo(1 / FULL_SCALE_24BITS, DELTA));
+        assertThat(frames[1][0], closeTo(-1 / FULL_SCALE_24BITS, DELTA));
+        assertThat(frames[0][1], closeTo(-1, DELTA));
+        assertThat(frames[1][1], closeTo(8388607 / FULL_SCALE_24BITS, DELTA));
+    }
+
+    @Test
+    public void shouldReadFloatSamples() {
+        ByteBuffer floats = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        floats.putFloat(0.5f).putFloat(-0.25f).putFloat(1.5f);
+        ByteBuffer doubles = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        doubles.putDouble(-0.75).putDouble(0.125);
+
+        SamplesIterator floatIterator = new SamplesIterator(new TestWave(floats.array(), 1, SampleFormat.FLOAT_32, 3));
+        float[] frames = new float[3];
+        floatIterator.readFrames(frames, 0, 3);
+        SamplesIterator doubleIterator = new SamplesIterator(new TestWave(doubles.array(), 2, SampleFormat.FLOAT_64, 1));
+        Sample sample = doubleIterator.next();
+
+        assertThat((double) frames[0], closeTo(0.5, DELTA));
+        assertThat((double) frames[1], closeTo(-0.25, DELTA));
+        // floats are not clipped
+        assertThat((double) frames[2], closeTo(1.5, DELTA));
+        assertThat(sample.getAmplitude(0), closeTo(-0.75, DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(0.125, DELTA));
+    }
+
+    @Test
+    public void shouldMoveBackwardsAndForwardsOnSeekableWave() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        SamplesIterator sequential = new SamplesIterator(wave);
+        Sample[] expected = new Sample[(int) wave.getTotalSamples()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = sequential.next();
+        }
+
+        SamplesIterator iterator = new SamplesIterator(wave);
+        long[] positions = {expected.length - 1, 10, 20000, 3, 3, expected.length / 2, 0};
+        for (long position : positions) {
+            Sample sample = iterator.moveToSample(position);
+            assertThat(sample.getAmplitude(0), closeTo(expected[(int) position].getAmplitude(0), DELTA));
+            assertThat(sample.getAmplitude(1), closeTo(expected[(int) position].getAmplitude(1), DELTA));
+            assertThat(iterator.getPosition(), is(position + 1));
+        }
+        iterator.close();
+        sequential.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMoveBackwardsOnStream() {
+        byte[] inputArray = {1, 0, 2, 0, 3, 0};
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 1, 2, 3));
+        iterator.moveToSample(2);
+        iterator.moveToSample(0);
+    }
+
+    @Test
+    public void shouldRejectReadsAndSeeksAfterClose() throws IOException {
+        byte[] inputArray = {1, 0, 2, 0, 3, 0};
+        SamplesIterator iterator = new SamplesIterator(new TestWave(inputArray, 1, 2, 3));
+        iterator.next();
+        iterator.close();
 
+        try {
+            iterator.next();
+            fail("Read a sample after close");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            iterator.readFrames(new float[2], 0, 2);
+            fail("Read frames after close");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            iterator.seek(2);
+            fail("Seeked after close");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertThat(iterator.getPosition(), is(1L));
     }
 
 }
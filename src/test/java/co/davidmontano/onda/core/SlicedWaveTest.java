@@ -0,0 +1,86 @@
+package co.davidmontano.onda.core;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+
+public class SlicedWaveTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000000001;
+
+    private static final int FRAME_SIZE = 4;
+
+    @Test
+    public void shouldReadOnlyFramesOfFileWaveSlice() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+
+        FileWave slice = wave.slice(1000, 3000);
+
+        assertThat(slice.getTotalSamples(), is(2000L));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(slice.data()), range(data, 1000, 3000)));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(Channels.newInputStream(slice.dataChannel())), range(data, 1000, 3000)));
+    }
+
+    @Test
+    public void shouldShareMappingsOfMappedWaveSlice() throws IOException {
+        MappedWave wave = new MappedWave(STEREO);
+        byte[] data = IOUtils.toByteArray(wave.data());
+
+        MappedWave slice = wave.slice(1000, 3000).slice(500, 1500);
+
+        assertThat(slice.getTotalSamples(), is(1000L));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(slice.data()), range(data, 1500, 2500)));
+        assertThat(slice.frames(0, 1).get(0), is(data[1500 * FRAME_SIZE]));
+        assertThat(slice.frames(0, 5000).remaining(), is(1000 * FRAME_SIZE));
+    }
+
+    @Test
+    public void shouldSkipToSliceOfStreamingWave() throws IOException {
+        byte[] data = IOUtils.toByteArray(new FileWave(STEREO).data());
+        Wave wave = new StreamingWave(new FileInputStream(STEREO));
+
+        Wave slice = wave.slice(1000, 3000).slice(10, 20);
+
+        assertThat(slice.getTotalSamples(), is(10L));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(slice.data()), range(data, 1010, 1020)));
+    }
+
+    @Test
+    public void shouldSeekInsideSlice() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        Wave slice = new SeekableSlicedWave(wave, 1000, 3000);
+        SamplesIterator expected = new SamplesIterator(wave);
+        SamplesIterator result = new SamplesIterator(slice);
+
+        assertThat(slice, instanceOf(SeekableWave.class));
+        Sample sample = result.moveToSample(1500);
+        Sample expectedSample = expected.moveToSample(2500);
+        assertThat(sample.getAmplitude(0), closeTo(expectedSample.getAmplitude(0), DELTA));
+        assertThat(sample.getAmplitude(1), closeTo(expectedSample.getAmplitude(1), DELTA));
+        expected.close();
+        result.close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectSliceOutOfWave() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        wave.slice(0, wave.getTotalSamples() + 1);
+    }
+
+    static byte[] range(byte[] data, long fromFrame, long toFrame) {
+        return Arrays.copyOfRange(data, (int) fromFrame * FRAME_SIZE, (int) toFrame * FRAME_SIZE);
+    }
+}
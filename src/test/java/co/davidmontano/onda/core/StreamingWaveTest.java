@@ -0,0 +1,137 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Spliterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class StreamingWaveTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private static final double DELTA = 0.000000001;
+
+    @Test
+    public void shouldDecodeSameFramesAsFileWave() throws IOException {
+        FileWave fileWave = new FileWave(STEREO);
+        StreamingWave streamingWave = new StreamingWave(Channels.newChannel(new FileInputStream(STEREO)));
+
+        assertThat(streamingWave.getChannels(), is(2));
+        assertThat(streamingWave.getSampleRate(), is(44100));
+        assertThat(streamingWave.getTotalSamples(), is(fileWave.getTotalSamples()));
+
+        SamplesIterator expected = new SamplesIterator(fileWave);
+        SamplesIterator result = new SamplesIterator(streamingWave);
+        double[][] expectedBlock = new double[2][1000];
+        double[][] resultBlock = new double[2][1000];
+        int read;
+        while ((read = expected.readFrames(expectedBlock, 0, 1000)) > 0) {
+            assertThat(result.readFrames(resultBlock, 0, 1000), is(read));
+            for (int frame = 0; frame < read; frame++) {
+                assertThat(resultBlock[1][frame], closeTo(expectedBlock[1][frame], DELTA));
+            }
+        }
+        assertThat(result.readFrames(resultBlock, 0, 1000), is(-1));
+        result.close();
+        expected.close();
+    }
+
+    @Test
+    public void shouldSkipSubchunksBeforeData() throws IOException {
+        byte[] original = Files.readAllBytes(Paths.get(STEREO));
+        // RIFF + fmt (36 bytes), a 3 bytes LIST subchunk plus padding, then data
+        ByteBuffer withList = ByteBuffer.allocate(original.length + 12).order(ByteOrder.LITTLE_ENDIAN);
+        withList.put(original, 0, 36);
+        withList.putInt(Subchunk.fourcc("LIST")).putInt(3).put(new byte[]{1, 2, 3, 0});
+        withList.put(original, 36, original.length - 36);
+
+        StreamingWave wave = new StreamingWave(new ByteArrayInputStream(withList.array()));
+        Sample first;
+        try (SamplesIterator iterator = new SamplesIterator(wave)) {
+            first = iterator.next();
+        }
+
+        assertThat(wave.getHeader().findSubchunk("data").getOffset(), is(56L));
+        assertThat(first.getAmplitude(0), closeTo(6 / 32768.0, DELTA));
+        assertThat(first.getAmplitude(1), closeTo(8 / 32768.0, DELTA));
+    }
+
+    @Test
+    public void shouldDecodeExtensibleFloatFormat() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(76).order(ByteOrder.LITTLE_ENDIAN);
+        file.putInt(Subchunk.fourcc("RIFF")).putInt(68).putInt(Subchunk.fourcc("WAVE"));
+        file.putInt(Subchunk.fourcc("fmt ")).putInt(40)
+                .putShort((short) 0xFFFE).putShort((short) 1).putInt(8000).putInt(32000)
+                .putShort((short) 4).putShort((short) 32)
+                .putShort((short) 22).putShort((short) 32).putInt(4)
+                // KSDATAFORMAT_SUBTYPE_IEEE_FLOAT
+                .put(new byte[]{3, 0, 0, 0, 0, 0, 0x10, 0, (byte) 0x80, 0, 0, (byte) 0xAA, 0, 0x38, (byte) 0x9B, 0x71});
+        file.putInt(Subchunk.fourcc("data")).putInt(8).putFloat(0.5f).putFloat(-0.75f);
+
+        StreamingWave wave = new StreamingWave(new ByteArrayInputStream(file.array()));
+        SamplesIterator iterator = new SamplesIterator(wave);
+
+        assertThat(wave.getSampleFormat(), is(SampleFormat.FLOAT_32));
+        assertThat(iterator.next().getAmplitude(0), closeTo(0.5, DELTA));
+        assertThat(iterator.next().getAmplitude(0), closeTo(-0.75, DELTA));
+    }
+
+    @Test
+    public void shouldReadStreamOfUnknownLengthToItsEnd() throws IOException {
+        byte[] original = Files.readAllBytes(Paths.get(STEREO));
+        // canonical header, data size as written by producers that cannot seek back, then 10 frames
+        ByteBuffer stream = ByteBuffer.allocate(44 + 10 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        stream.put(original, 0, stream.capacity()).putInt(40, 0xFFFFFFFF);
+
+        StreamingWave iterated = new StreamingWave(new ByteArrayInputStream(stream.array()));
+        SamplesIterator iterator = new SamplesIterator(iterated);
+        int frames = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            frames++;
+        }
+        iterator.close();
+        StreamingWave streamed = new StreamingWave(new ByteArrayInputStream(stream.array()));
+
+        assertThat(iterated.getTotalSamples(), is(Wave.UNKNOWN_LENGTH));
+        assertThat(iterated.isLengthKnown(), is(false));
+        assertThat(frames, is(10));
+        assertThat(streamed.frames().spliterator().hasCharacteristics(Spliterator.SIZED), is(false));
+        assertThat(new StreamingWave(new ByteArrayInputStream(stream.array())).frames().count(), is(10L));
+    }
+
+    @Test
+    public void shouldSizeDataByDecodedFrames() throws IOException {
+        byte[] original = Files.readAllBytes(Paths.get(STEREO));
+        // 10 frames of 4 bytes announced with a wrong block align of 2 bytes
+        ByteBuffer stream = ByteBuffer.allocate(44 + 10 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        stream.put(original, 0, stream.capacity()).putShort(32, (short) 2).putInt(40, 10 * 4);
+
+        StreamingWave wave = new StreamingWave(new ByteArrayInputStream(stream.array()));
+
+        SamplesIterator iterator = new SamplesIterator(wave);
+        float[] frames = new float[2 * 20];
+
+        assertThat(wave.getTotalSamples(), is(10L));
+        assertThat(iterator.readFrames(frames, 0, 20), is(10));
+        iterator.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldReadSamplesOnlyOnce() throws IOException {
+        StreamingWave wave = new StreamingWave(new FileInputStream(STEREO));
+        wave.data();
+        wave.trim(0.1).data();
+    }
+}
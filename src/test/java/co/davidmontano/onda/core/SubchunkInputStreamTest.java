@@ -25,4 +25,20 @@ public class SubchunkInputStreamTest {
         assertTrue(Arrays.equals(result, expected));
     }
 
+    @Test
+    public void shouldNotReadPastTheEndOfTheSubchunk() throws IOException {
+        byte[] data = {1, 2, 3, 4, 5, 6, 7, 8, 9, 0};
+
+        SubchunkInputStream input = new SubchunkInputStream(new Subchunk("id", 2, 5), new ByteArrayInputStream(data));
+        byte[] result = new byte[8];
+        int firstRead = input.read(result, 0, 3);
+        int secondRead = input.read(result, 3, 5);
+
+        byte[] expected = {3, 4, 5, 6, 7, 0, 0, 0};
+        assertThat(firstRead, is(3));
+        assertThat(secondRead, is(2));
+        assertThat(input.read(result, 0, 8), is(-1));
+        assertTrue(Arrays.equals(result, expected));
+    }
+
 }
@@ -12,13 +12,27 @@ public class TestWave implements Wave {
 
     private final int bytePerSample;
 
+    private final SampleFormat format;
+
     private final long totalSamples;
 
+    private final int sampleRate;
+
     public TestWave(byte[] bytes, int channels, int bytePerSample, long totalSamples) {
+        this(bytes, channels, SampleFormat.of(Constants.AUDIO_FORMAT_PCM, bytePerSample * 8), totalSamples);
+    }
+
+    public TestWave(byte[] bytes, int channels, SampleFormat format, long totalSamples) {
+        this(bytes, channels, format, totalSamples, 44100);
+    }
+
+    public TestWave(byte[] bytes, int channels, SampleFormat format, long totalSamples, int sampleRate) {
         this.bytes = bytes;
         this.channels = channels;
-        this.bytePerSample = bytePerSample;
+        this.bytePerSample = format.getBytePerSample();
+        this.format = format;
         this.totalSamples = totalSamples;
+        this.sampleRate = sampleRate;
     }
 
     @Override
@@ -36,6 +50,16 @@ public class TestWave implements Wave {
         return bytePerSample;
     }
 
+    @Override
+    public SampleFormat getSampleFormat() {
+        return format;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
     @Override
     public long getTotalSamples() {
         return totalSamples;
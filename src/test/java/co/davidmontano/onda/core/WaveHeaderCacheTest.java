@@ -0,0 +1,92 @@
+package co.davidmontano.onda.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class WaveHeaderCacheTest {
+
+    private static final String MONO = "src/test/resources/1channel_441khz_16bps.wav";
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldParseKnownFilesOnlyOnce() throws IOException {
+        WaveHeaderCache cache = new WaveHeaderCache(10);
+
+        WaveHeader first = cache.get(MONO);
+        FileWave wave = new FileWave(MONO, cache);
+        WaveHeader second = cache.get(MONO);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(wave.getChannels(), is(1));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHits(), is(2L));
+    }
+
+    @Test
+    public void shouldOpenFileOnlyOnMiss() throws IOException {
+        WaveHeaderCache cache = new WaveHeaderCache(10);
+        WaveMetrics metrics = new WaveMetrics();
+        WaveMetrics.addListener(metrics);
+        try {
+            cache.get(STEREO);
+            cache.get(STEREO);
+        } finally {
+            WaveMetrics.removeListener(metrics);
+        }
+
+        assertThat(metrics.getFilesOpened(), is(1L));
+    }
+
+    @Test
+    public void shouldParseAgainWhenFileChanges() throws IOException {
+        File file = folder.newFile("copy.wav");
+        Files.copy(new File(MONO).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        WaveHeaderCache cache = new WaveHeaderCache(10);
+
+        assertThat(cache.get(file.getPath()).getChannels(), is(1));
+        Files.copy(new File(STEREO).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 5000));
+
+        assertThat(cache.get(file.getPath()).getChannels(), is(2));
+        assertThat(cache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws IOException {
+        WaveHeaderCache cache = new WaveHeaderCache(1);
+
+        cache.get(MONO);
+        cache.get(STEREO);
+        cache.get(MONO);
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getEvictions(), is(2L));
+        assertThat(cache.getMisses(), is(3L));
+    }
+
+    @Test
+    public void shouldParseAgainAfterInvalidation() throws IOException {
+        WaveHeaderCache cache = new WaveHeaderCache(10);
+
+        cache.get(MONO);
+        cache.invalidate(MONO);
+        cache.get(MONO);
+
+        assertThat(cache.getMisses(), is(2L));
+    }
+}
@@ -0,0 +1,99 @@
+package co.davidmontano.onda.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class WaveMetricsTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    private final WaveMetrics metrics = new WaveMetrics();
+
+    @Before
+    public void listen() {
+        WaveMetrics.addListener(metrics);
+    }
+
+    @After
+    public void stopListening() {
+        WaveMetrics.removeListener(metrics);
+    }
+
+    @Test
+    public void shouldCountReadsAndDecodedFrames() throws IOException {
+        WaveHeaderCache.getDefault().invalidate(STEREO);
+        FileWave wave = new FileWave(STEREO);
+
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            float[] frames = new float[2 * 1000];
+            while (samples.readFrames(frames, 0, 1000) > 0) {
+                // decoding only
+            }
+        }
+
+        // one open to parse the header, one to read the data
+        assertThat(metrics.getFilesOpened(), is(2L));
+        assertThat(metrics.getBytesRead(), is(wave.getTotalSamples() * 4));
+        assertThat(metrics.getFramesDecoded(), is(wave.getTotalSamples()));
+        assertThat(metrics.getIoNanos(), greaterThan(0L));
+        assertThat(metrics.getDecodeNanos(), greaterThan(0L));
+        assertThat(metrics.getSeeks(), is(0L));
+    }
+
+    @Test
+    public void shouldCountSeeksAndSkippedBytes() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        StreamingWave stream = new StreamingWave(new FileInputStream(STEREO));
+
+        try (SamplesIterator seekable = new SamplesIterator(wave);
+             SamplesIterator sequential = new SamplesIterator(stream)) {
+            seekable.moveToSample(20000);
+            seekable.moveToSample(5);
+            sequential.moveToSample(20000);
+        }
+
+        assertThat(metrics.getSeeks(), is(3L));
+        // only the stream has to read through the bytes it skips
+        assertThat(metrics.getBytesSkipped(), is(20000L * 4));
+        assertThat(metrics.getFramesDecoded(), is(3L));
+    }
+
+    @Test
+    public void shouldStopCountingWhenRemoved() throws IOException {
+        WaveMetrics.removeListener(metrics);
+
+        try (SamplesIterator samples = new SamplesIterator(new FileWave(STEREO))) {
+            samples.next();
+        }
+
+        assertThat(metrics.getFilesOpened(), is(0L));
+        assertThat(metrics.getBytesRead(), is(0L));
+    }
+
+    @Test
+    public void shouldRegisterDefaultMetricsInJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(WaveMetrics.OBJECT_NAME);
+
+        WaveMetrics.registerMBean();
+        try (SamplesIterator samples = new SamplesIterator(new FileWave(STEREO))) {
+            samples.next();
+        }
+
+        assertThat(server.isRegistered(name), is(true));
+        assertThat((Long) server.getAttribute(name, "FilesOpened"), greaterThan(0L));
+        WaveMetrics.unregisterMBean();
+        assertThat(server.isRegistered(name), is(false));
+    }
+}
@@ -0,0 +1,215 @@
+package co.davidmontano.onda.core;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+
+public class WaveWriterTest {
+
+    private static final String STEREO = "src/test/resources/2channel_441khz_16bps.wav";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldExportTrimmedRegion() throws IOException {
+        FileWave trimmed = new FileWave(STEREO).trim(0.1);
+        String location = new File(folder.getRoot(), "trimmed.wav").getPath();
+
+        WaveWriter.export(trimmed, location);
+        FileWave exported = new FileWave(location);
+
+        assertThat(exported.getTotalSamples(), is(trimmed.getTotalSamples()));
+        assertThat(exported.getChannels(), is(trimmed.getChannels()));
+        assertThat(exported.getSampleRate(), is(trimmed.getSampleRate()));
+        assertThat(exported.getBitsPerSample(), is(trimmed.getBitsPerSample()));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(exported.data()), IOUtils.toByteArray(trimmed.data())));
+    }
+
+    @Test
+    public void shouldReleaseBufferOnceWhenClosedAfterInterrupt() throws IOException {
+        String location = new File(folder.getRoot(), "interrupted.wav").getPath();
+        long inUse = BufferPool.direct().getInUseBytes();
+        WaveWriter writer = new WaveWriter(location, 1, 8000, 16);
+        writer.write(new short[]{1, 2, 3}, 0, 3);
+
+        Thread.currentThread().interrupt();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // the channel was closed by the interrupt before the header went out
+        } finally {
+            Thread.interrupted();
+        }
+        writer.close();
+
+        assertThat(BufferPool.direct().getInUseBytes(), is(inUse));
+    }
+
+    @Test
+    public void shouldWriteShortsAsLittleEndian() throws IOException {
+        String location = new File(folder.getRoot(), "shorts.wav").getPath();
+        short[] samples = {0, 1, -1, Short.MAX_VALUE, Short.MIN_VALUE, 256};
+
+        try (WaveWriter writer = new WaveWriter(location, 2, 8000, 16)) {
+            writer.write(samples, 0, 3);
+            assertThat(writer.getFramesWritten(), is(3L));
+        }
+        FileWave written = new FileWave(location);
+        ByteBuffer data = ByteBuffer.wrap(IOUtils.toByteArray(written.data())).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertThat(written.getTotalSamples(), is(3L));
+        assertThat(data.remaining(), is(samples.length * 2));
+        for (short sample : samples) {
+            assertThat(data.getShort(), is(sample));
+        }
+    }
+
+    @Test
+    public void shouldWriteEncodedFramesAndPadOddData() throws IOException {
+        String location = new File(folder.getRoot(), "odd.wav").getPath();
+
+        try (WaveWriter writer = new WaveWriter(location, 1, 8000, 8)) {
+            writer.write(ByteBuffer.wrap(new byte[]{1, 2}), ByteBuffer.wrap(new byte[]{3}));
+        }
+        FileWave written = new FileWave(location);
+
+        assertThat(written.getTotalSamples(), is(3L));
+        assertThat(new File(location).length(), is(44L + 4));
+        assertTrue(Arrays.equals(IOUtils.toByteArray(written.data()), new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void shouldExportSameFormatConcatenationExactly() throws IOException {
+        FileWave wave = new FileWave(STEREO);
+        Wave concat = Wave.concat(wave.slice(100, 5000), wave.slice(10000, 12001));
+        String location = new File(folder.getRoot(), "concat.wav").getPath();
+
+        WaveWriter.export(concat, location);
+
+        assertTrue(Arrays.equals(bytes(new FileWave(location)), bytes(concat)));
+    }
+
+    @Test
+    public void shouldEncodeDecodedSamplesBackToSameValues() throws IOException {
+        Wave slice = new FileWave(STEREO).slice(100, 5000);
+        String location = new File(folder.getRoot(), "decoded.wav").getPath();
+
+        try (WaveWriter writer = new WaveWriter(location, 2, 44100, 16)) {
+            writer.write(slice);
+            writer.write(new float[]{-1, 1, 32766 / 32768f, -32767 / 32768f}, 0, 2);
+        }
+        ByteBuffer data = ByteBuffer.wrap(bytes(new FileWave(location))).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer expected = ByteBuffer.wrap(bytes(slice)).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (expected.hasRemaining()) {
+            assertThat(data.getShort(), is(expected.getShort()));
+        }
+        assertThat(data.getShort(), is(Short.MIN_VALUE));
+        assertThat(data.getShort(), is(Short.MAX_VALUE));
+        assertThat(data.getShort(), is((short) 32766));
+        assertThat(data.getShort(), is((short) -32767));
+    }
+
+    private static byte[] bytes(Wave wave) throws IOException {
+        try (InputStream data = wave.data()) {
+            return IOUtils.toByteArray(data);
+        }
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void shouldNotWriteEncodedFramesAfterClose() throws IOException {
+        WaveWriter writer = new WaveWriter(new File(folder.getRoot(), "closed.wav").getPath(), 1, 8000, 16);
+        writer.close();
+
+        writer.write(ByteBuffer.allocate(4));
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void shouldNotTransferAfterClose() throws IOException {
+        WaveWriter writer = new WaveWriter(new File(folder.getRoot(), "closed.wav").getPath(), 2, 44100, 16);
+        writer.close();
+
+        writer.transfer(new FileWave(STEREO));
+    }
+
+    @Test
+    public void shouldWriteExtensibleHeaderForFloatsAndManyChannels() throws IOException {
+        String floats = new File(folder.getRoot(), "floats.wav").getPath();
+        String surround = new File(folder.getRoot(), "surround.wav").getPath();
+        try (WaveWriter writer = new WaveWriter(floats, 2, 8000, SampleFormat.FLOAT_32)) {
+            writer.write(new float[]{0.5f, -0.5f, 0.25f, -0.25f, 0, 1}, 0, 3);
+        }
+        try (WaveWriter writer = new WaveWriter(surround, 6, 48000, 16)) {
+            writer.write(new short[12], 0, 2);
+        }
+
+        ByteBuffer floatFile = ByteBuffer.wrap(Files.readAllBytes(Paths.get(floats))).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer surroundFile = ByteBuffer.wrap(Files.readAllBytes(Paths.get(surround))).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertThat(floatFile.getShort(20) & 0xFFFF, is(Constants.AUDIO_FORMAT_EXTENSIBLE));
+        assertThat((int) floatFile.getShort(44), is(Constants.AUDIO_FORMAT_IEEE_FLOAT));
+        assertThat(floatFile.getInt(40), is(0x3));
+        assertThat(floatFile.getInt(60), is(Subchunk.fourcc("fact")));
+        assertThat(floatFile.getInt(68), is(3));
+        assertThat(floatFile.getInt(4), is(floatFile.capacity() - 8));
+        assertThat(surroundFile.getInt(40), is(0x3F));
+        assertThat((int) surroundFile.getShort(44), is(Constants.AUDIO_FORMAT_PCM));
+        assertThat(surroundFile.getInt(68), is(2));
+
+        FileWave floatWave = new FileWave(floats);
+        FileWave surroundWave = new FileWave(surround);
+        assertThat(floatWave.getSampleFormat(), is(SampleFormat.FLOAT_32));
+        assertThat(floatWave.getTotalSamples(), is(3L));
+        assertThat(surroundWave.getChannels(), is(6));
+        assertThat(surroundWave.getTotalSamples(), is(2L));
+        try (SamplesIterator samples = new SamplesIterator(floatWave)) {
+            assertThat(samples.next().getAmplitude(1), closeTo(-0.5, 0.000001));
+        }
+    }
+
+    @Test
+    public void shouldReadBackEveryFormat() throws IOException {
+        float[] samples = {0, 0.5f, -0.5f, -1};
+        for (SampleFormat format : SampleFormat.values()) {
+            String location = new File(folder.getRoot(), format + ".wav").getPath();
+            try (WaveWriter writer = new WaveWriter(location, 2, 8000, format)) {
+                writer.write(samples, 0, 2);
+            }
+            FileWave written = new FileWave(location);
+            float[] read = new float[samples.length];
+            try (SamplesIterator iterator = new SamplesIterator(written)) {
+                iterator.readFrames(read, 0, 2);
+            }
+
+            assertThat(written.getSampleFormat(), is(format));
+            for (int i = 0; i < samples.length; i++) {
+                assertThat((double) read[i], closeTo(samples[i], 0.01));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPartialFrames() throws IOException {
+        String location = new File(folder.getRoot(), "partial.wav").getPath();
+        try (WaveWriter writer = new WaveWriter(location, 2, 8000, 16)) {
+            writer.write(ByteBuffer.wrap(new byte[3]));
+        }
+    }
+}
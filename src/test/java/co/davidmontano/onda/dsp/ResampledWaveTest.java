@@ -0,0 +1,142 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.SampleFormat;
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ResampledWaveTest {
+
+    @Test
+    public void shouldDownsampleSine() {
+        Wave wave = sine(44100, 1000, 44100, 2);
+
+        ResampledWave resampled = new ResampledWave(wave, 16000);
+        float[] frames = read(resampled);
+
+        assertThat(resampled.getUp(), is(160));
+        assertThat(resampled.getDown(), is(441));
+        assertThat(resampled.getSampleFormat(), is(SampleFormat.FLOAT_32));
+        assertThat(resampled.getTotalSamples(), is(16000L));
+        assertThat(frames.length, is(16000 * 2));
+        // away from the edges, where the filter sees the silence around the wave
+        for (int frame = 1000; frame < 15000; frame++) {
+            double expected = 0.5 * Math.sin(2 * Math.PI * 1000 * frame / 16000.0);
+            assertThat((double) frames[frame * 2], closeTo(expected, 0.005));
+            assertThat((double) frames[frame * 2 + 1], closeTo(expected, 0.005));
+        }
+    }
+
+    @Test
+    public void shouldUpsampleSine() {
+        Wave wave = sine(16000, 440, 8000, 1);
+
+        float[] frames = read(new ResampledWave(wave, 48000));
+
+        assertThat(frames.length, is(24000));
+        for (int frame = 2000; frame < 22000; frame++) {
+            assertThat((double) frames[frame], closeTo(0.5 * Math.sin(2 * Math.PI * 440 * frame / 48000.0), 0.005));
+        }
+    }
+
+    @Test
+    public void shouldRemoveFrequenciesAboveNewNyquist() {
+        Wave wave = sine(44100, 10000, 44100, 1);
+
+        float[] frames = read(new ResampledWave(wave, 16000));
+
+        double sumOfSquares = 0;
+        for (int frame = 1000; frame < 15000; frame++) {
+            sumOfSquares += frames[frame] * frames[frame];
+        }
+        assertThat(Math.sqrt(sumOfSquares / 14000), lessThan(0.005));
+    }
+
+    @Test
+    public void shouldDownmixToMono() {
+        ByteBuffer bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putShort((short) 16384).putShort((short) 0).putShort((short) -16384).putShort((short) -16384);
+        Wave wave = new TestWave(bytes.array(), 2, 2, 2);
+
+        float[] frames = read(new MonoWave(wave));
+
+        assertThat(frames.length, is(2));
+        assertThat((double) frames[0], closeTo(0.25, 0.000001));
+        assertThat((double) frames[1], closeTo(-0.5, 0.000001));
+    }
+
+    @Test
+    public void shouldKeepSameRate() {
+        Wave wave = sine(44100, 1000, 1000, 1);
+
+        float[] frames = read(new ResampledWave(wave, 44100));
+        float[] expected = read(new MonoWave(wave));
+
+        assertThat(frames.length, is(1000));
+        for (int frame = 0; frame < frames.length; frame++) {
+            assertThat((double) frames[frame], closeTo(expected[frame], 0.000001));
+        }
+    }
+
+    @Test
+    public void shouldStreamWaveOfUnknownLength() {
+        Wave wave = sine(16000, 440, 1000, 2, Wave.UNKNOWN_LENGTH);
+
+        ResampledWave resampled = new ResampledWave(wave, 48000);
+        MonoWave mono = new MonoWave(wave);
+
+        assertThat(resampled.getTotalSamples(), is(Wave.UNKNOWN_LENGTH));
+        assertThat(resampled.frames().count(), is(3000L));
+        assertThat(mono.getTotalSamples(), is(Wave.UNKNOWN_LENGTH));
+        assertThat(mono.frames().count(), is(1000L));
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void shouldNotReadClosedChannel() throws IOException {
+        ReadableByteChannel channel = new ResampledWave(sine(16000, 440, 1000, 1), 8000).dataChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        channel.read(buffer);
+        channel.close();
+
+        channel.read(buffer);
+    }
+
+    // 0.5 amplitude sine on every channel, as floats
+    private static Wave sine(int sampleRate, double frequency, int frames, int channels) {
+        return sine(sampleRate, frequency, frames, channels, frames);
+    }
+
+    private static Wave sine(int sampleRate, double frequency, int frames, int channels, long totalSamples) {
+        ByteBuffer bytes = ByteBuffer.allocate(frames * channels * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int frame = 0; frame < frames; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                bytes.putFloat((float) (0.5 * Math.sin(2 * Math.PI * frequency * frame / sampleRate)));
+            }
+        }
+        return new TestWave(bytes.array(), channels, SampleFormat.FLOAT_32, totalSamples, sampleRate);
+    }
+
+    private static float[] read(Wave wave) {
+        float[] frames = new float[(int) wave.getTotalSamples() * wave.getChannels()];
+        SamplesIterator samples = new SamplesIterator(wave);
+        int read = 0;
+        int count;
+        while (read < wave.getTotalSamples() && (count = samples.readFrames(frames, read * wave.getChannels(),
+                (int) wave.getTotalSamples() - read)) > 0) {
+            read += count;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,74 @@
+package co.davidmontano.onda.dsp;
+
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class StftTest {
+
+    private static final int FFT_SIZE = 1024;
+
+    // exactly on bin 32 at 44100 Hz
+    private static final double FREQUENCY = 32 * 44100.0 / FFT_SIZE;
+
+    @Test
+    public void shouldFindAmplitudeOfSine() {
+        Wave wave = stereoSine(0.5, 20000);
+
+        Spectrogram spectrogram = new Stft(FFT_SIZE, 256, Window.HANN).spectrogram(wave, 0);
+
+        assertThat(spectrogram.getFrames(), is((20000 + 255) / 256));
+        assertThat(spectrogram.getBins(), is(513));
+        assertThat(spectrogram.getFrequency(32), closeTo(FREQUENCY, 0.001));
+        float[] magnitudes = spectrogram.getMagnitudes(10);
+        assertThat((double) magnitudes[32], closeTo(0.5, 0.001));
+        assertThat((double) magnitudes[100], lessThan(0.001));
+    }
+
+    @Test
+    public void shouldMixChannels() {
+        Wave wave = stereoSine(0.5, 4096);
+
+        Spectrogram spectrogram = new Stft(FFT_SIZE, FFT_SIZE, Window.HANN).spectrogram(wave);
+
+        // right channel is silent
+        assertThat((double) spectrogram.getMagnitude(1, 32), closeTo(0.25, 0.001));
+    }
+
+    @Test
+    public void shouldStreamFramesInOrder() {
+        Wave wave = stereoSine(0.5, 100000);
+        AtomicLong next = new AtomicLong();
+
+        new Stft(512, 128, Window.BLACKMAN).process(wave, 1, (frame, magnitudes) -> {
+            assertThat(frame, is(next.getAndIncrement()));
+            assertThat(magnitudes.length, is(257));
+        });
+
+        assertThat(next.get(), is((100000 + 127) / 128L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSizesNotPowerOfTwo() {
+        new Stft(1000, 100, Window.HANN);
+    }
+
+    // sine on the left channel, silence on the right
+    static Wave stereoSine(double amplitude, int frames) {
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int frame = 0; frame < frames; frame++) {
+            double value = amplitude * Math.sin(2 * Math.PI * FREQUENCY * frame / 44100);
+            bytes.putShort((short) Math.round(value * 32767)).putShort((short) 0);
+        }
+        return new TestWave(bytes.array(), 2, 2, frames);
+    }
+}
@@ -0,0 +1,40 @@
+package co.davidmontano.onda.image;
+
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.dsp.Spectrogram;
+import co.davidmontano.onda.dsp.Stft;
+import co.davidmontano.onda.dsp.Window;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class DrawSpectrogramTest {
+
+    @Test
+    public void shouldDrawToneBrighterThanSilence() {
+        int frames = 44100;
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int frame = 0; frame < frames; frame++) {
+            // a quarter of the way up to the Nyquist frequency
+            bytes.putShort((short) Math.round(16000 * Math.sin(2 * Math.PI * 11025.0 * frame / 44100)));
+        }
+        Spectrogram spectrogram = new Stft(512, 512, Window.HANN).spectrogram(new TestWave(bytes.array(), 1, 2, frames));
+
+        BufferedImage image = new DrawSpectrogram(spectrogram).draw(200, 100);
+
+        assertThat(image.getWidth(), is(200));
+        assertThat(image.getHeight(), is(100));
+        // bin 128 of 257 is on row 49
+        assertThat(brightness(image.getRGB(100, 49)), greaterThan(brightness(image.getRGB(100, 10))));
+    }
+
+    private static int brightness(int rgb) {
+        return (rgb >> 16 & 0xFF) + (rgb >> 8 & 0xFF) + (rgb & 0xFF);
+    }
+}
@@ -0,0 +1,94 @@
+package co.davidmontano.onda.image;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.Sample;
+import co.davidmontano.onda.core.SamplesIterator;
+import co.davidmontano.onda.core.SeekableWave;
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class DrawWaveTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void shouldDrawOneImagePerChannel() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+
+        BufferedImage[] images = new DrawWave(wave).draw(300, 80);
+
+        assertThat(images.length, is(2));
+        assertThat(images[1].getWidth(), is(300));
+        assertThat(images[1].getHeight(), is(80));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWaveOfUnknownLength() {
+        new DrawWave(new TestWave(new byte[40], 2, 2, Wave.UNKNOWN_LENGTH)).peaks(100);
+    }
+
+    @Test
+    public void shouldComputeSamePeaksInParallelAsSequentially() throws IOException {
+        FileWave[] parts = new FileWave[15];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        }
+        // over 2^18 frames, split in several tasks
+        Wave wave = Wave.concat(parts);
+        int width = 300;
+
+        WavePeaks peaks = new DrawWave(wave).peaks(width);
+
+        assertThat(wave, instanceOf(SeekableWave.class));
+        assertThat(peaks.getWidth(), is(width));
+        try (SamplesIterator samples = new SamplesIterator(wave)) {
+            for (int column = 0; column < width; column++) {
+                long frames = (column + 1) * wave.getTotalSamples() / width - column * wave.getTotalSamples() / width;
+                double[] min = {Double.MAX_VALUE, Double.MAX_VALUE};
+                double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE};
+                double[] sumOfSquares = new double[2];
+                for (long frame = 0; frame < frames; frame++) {
+                    Sample sample = samples.next();
+                    for (int channel = 0; channel < 2; channel++) {
+                        double amplitude = sample.getAmplitude(channel);
+                        min[channel] = Math.min(min[channel], amplitude);
+                        max[channel] = Math.max(max[channel], amplitude);
+                        sumOfSquares[channel] += amplitude * amplitude;
+                    }
+                }
+                for (int channel = 0; channel < 2; channel++) {
+                    assertThat((double) peaks.getMin(channel, column), closeTo(min[channel], DELTA));
+                    assertThat((double) peaks.getMax(channel, column), closeTo(max[channel], DELTA));
+                    assertThat((double) peaks.getRms(channel, column), closeTo(Math.sqrt(sumOfSquares[channel] / frames), DELTA));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldComputePeaksOfWaveShorterThanWidth() {
+        byte[] inputArray = {
+                0, 0, (byte) 255, 0, //sample 1: {0, 255}
+                0, 0, 0, 0 //sample 2: {0, 0}
+        };
+        DrawWave drawWave = new DrawWave(new TestWave(inputArray, 2, 2, 2));
+
+        WavePeaks peaks = drawWave.peaks(100);
+        BufferedImage[] images = drawWave.draw(100, 10);
+
+        assertThat(peaks.getWidth(), is(2));
+        assertThat((double) peaks.getMax(1, 0), closeTo(255 / 32768.0, DELTA));
+        assertThat((double) peaks.getRms(1, 0), closeTo(255 / 32768.0, DELTA));
+        assertThat((double) peaks.getMax(1, 1), closeTo(0, DELTA));
+        assertThat(images[0].getWidth(), is(100));
+    }
+}
@@ -0,0 +1,88 @@
+package co.davidmontano.onda.image;
+
+import co.davidmontano.onda.core.FileWave;
+import co.davidmontano.onda.core.TestWave;
+import co.davidmontano.onda.core.Wave;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class PeakPyramidTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldMatchExactPeaksOnBlockBoundaries() throws IOException {
+        FileWave wave = new FileWave("src/test/resources/2channel_441khz_16bps.wav");
+        PeakPyramid pyramid = PeakPyramid.build(wave, 16);
+
+        // 16 frames per column at level 0, 64 at level 2
+        for (int framesPerColumn : new int[]{16, 64}) {
+            int width = (int) (wave.getTotalSamples() / framesPerColumn);
+            long toFrame = (long) width * framesPerColumn;
+            WavePeaks expected = new DrawWave(new FileWave("src/test/resources/2channel_441khz_16bps.wav").trim(toFrame / 44100.0)).peaks(width);
+            WavePeaks result = pyramid.peaks(0, toFrame, width);
+            for (int column = 0; column < width; column++) {
+                assertThat((double) result.getMin(1, column), closeTo(expected.getMin(1, column), DELTA));
+                assertThat((double) result.getMax(1, column), closeTo(expected.getMax(1, column), DELTA));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWaveOfUnknownLength() {
+        PeakPyramid.build(new TestWave(new byte[40], 2, 2, Wave.UNKNOWN_LENGTH), 16);
+    }
+
+    @Test
+    public void shouldRebuildSidecarOfReplacedFile() throws IOException {
+        Path wav = folder.getRoot().toPath().resolve("replaced.wav");
+        Files.copy(Paths.get("src/test/resources/2channel_441khz_16bps.wav"), wav);
+        assertThat(PeakPyramid.forFile(wav.toString()).getChannels(), is(2));
+
+        // another file, older than the sidecar
+        Files.copy(Paths.get("src/test/resources/1channel_441khz_16bps.wav"), wav, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(wav, FileTime.fromMillis(1000000000000L));
+        PeakPyramid pyramid = PeakPyramid.forFile(wav.toString());
+
+        assertThat(pyramid.getChannels(), is(1));
+        assertThat(pyramid.getTotalFrames(), is(new FileWave(wav.toString()).getTotalSamples()));
+    }
+
+    @Test
+    public void shouldReadBackWrittenSidecar() throws IOException {
+        byte[] inputArray = {
+                0, 0, 10, 0, 20, 0, 30, 0, 40, 0
+        };
+        PeakPyramid pyramid = PeakPyramid.build(new TestWave(inputArray, 1, 2, 5), 2);
+        Path sidecar = folder.getRoot().toPath().resolve("test.wav" + PeakPyramid.SIDECAR_EXTENSION);
+        pyramid.write(sidecar);
+
+        PeakPyramid mapped = PeakPyramid.map(sidecar);
+        WavePeaks whole = mapped.peaks(1);
+
+        assertThat(mapped.getLevels(), is(3));
+        assertThat(mapped.getTotalFrames(), is(5L));
+        assertThat((double) whole.getMin(0, 0), closeTo(0, DELTA));
+        assertThat((double) whole.getMax(0, 0), closeTo(40 / 32768.0, DELTA));
+        assertThat((double) mapped.peaks(2, 4, 2).getMax(0, 1), closeTo(30 / 32768.0, DELTA));
+
+        BufferedImage[] images = DrawWave.draw(mapped, 0, 5, 50, 20);
+        assertThat(images.length, is(1));
+    }
+}